@@ -0,0 +1,85 @@
+package com.salesforce.slack.swarm;
+
+import com.google.gson.Gson;
+import com.salesforce.slack.swarm.client.SwarmJson;
+import com.salesforce.slack.swarm.model.ReviewDetails;
+import com.salesforce.slack.swarm.model.ReviewsData;
+import com.salesforce.slack.swarm.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of Swarm responses with the Gson the client uses ({@code streaming}) and with plain reflective Gson
+ * ({@code reflective}), the baseline the streaming review adapter is measured against. Responses are read through
+ * a {@link java.io.Reader} as {@code SwarmClient} reads the response body.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecodingBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Decoder {
+        @Param({"streaming", "reflective"})
+        private String decoder;
+
+        private Gson gson;
+
+        @Setup
+        public void setUp() {
+            gson = "streaming".equals(decoder) ? SwarmJson.GSON : SwarmJson.REFLECTIVE_GSON;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ReviewsPayload {
+        @Param({"5", "50", "500", "5000"})
+        private int reviewCount;
+
+        private String json;
+
+        @Setup
+        public void setUp() {
+            json = SwarmPayloads.reviewsJson(reviewCount);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class UsersPayload {
+        // users are looked up in batches, see UserBatcher
+        @Param({"1", "20", "100"})
+        private int userCount;
+
+        private String json;
+
+        @Setup
+        public void setUp() {
+            json = SwarmPayloads.usersJson(userCount);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ReviewDetailsPayload {
+        private final String json = SwarmPayloads.reviewDetailsJson();
+    }
+
+    @Benchmark
+    public ReviewsData decodeReviewsData(Decoder decoder, ReviewsPayload payload) {
+        return decoder.gson.fromJson(new StringReader(payload.json), ReviewsData.class);
+    }
+
+    @Benchmark
+    public ReviewDetails decodeReviewDetails(Decoder decoder, ReviewDetailsPayload payload) {
+        return decoder.gson.fromJson(new StringReader(payload.json), ReviewDetails.class);
+    }
+
+    @Benchmark
+    public User[] decodeUsers(Decoder decoder, UsersPayload payload) {
+        return decoder.gson.fromJson(new StringReader(payload.json), User[].class);
+    }
+
+}
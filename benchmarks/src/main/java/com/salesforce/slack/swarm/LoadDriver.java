@@ -0,0 +1,293 @@
+package com.salesforce.slack.swarm;
+
+import com.salesforce.slack.swarm.config.AppSettings;
+import com.salesforce.slack.swarm.metrics.Metrics;
+import com.slack.api.Slack;
+import com.slack.api.SlackConfig;
+import com.slack.api.bolt.App;
+import com.slack.api.bolt.AppConfig;
+import com.slack.api.bolt.request.Request;
+import com.slack.api.bolt.request.RequestHeaders;
+import com.slack.api.bolt.request.builtin.BlockActionRequest;
+import com.slack.api.bolt.request.builtin.EventRequest;
+import com.slack.api.bolt.request.builtin.SlashCommandRequest;
+import com.slack.api.bolt.response.Response;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Feeds signed, synthetic slash command, block action and app_home_opened requests into the app's Bolt
+ * {@link App} at a fixed rate and reports throughput and ack latency percentiles per request kind.
+ * <p>
+ * Requests are sent open-loop: each has a scheduled send time and its latency is measured from that time, so a
+ * stalled app shows up as queueing latency instead of silently lowering the offered rate. Swarm and the Slack
+ * Web API are served by an in-process {@link StubSwarmServer} unless {@code SWARM_BASE_URL} points elsewhere.
+ */
+@Slf4j
+public class LoadDriver {
+
+    static final String SIGNING_SECRET = "load-test-signing-secret";
+
+    private enum Kind {
+        COMMAND, ACTION, HOME
+    }
+
+    private final App app;
+    private final String respondUrl;
+    private final int slackUsers;
+    private final int reviewCount;
+    private final Map<Kind, Integer> mix;
+
+    private LoadDriver(App app, String respondUrl, int slackUsers, int reviewCount, Map<Kind, Integer> mix) {
+        this.app = app;
+        this.respondUrl = respondUrl;
+        this.slackUsers = slackUsers;
+        this.reviewCount = reviewCount;
+        this.mix = mix;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rate = AppSettings.getInt("LOAD_RATE", 50);
+        int warmupSeconds = AppSettings.getInt("LOAD_WARMUP_SECONDS", 10);
+        int durationSeconds = AppSettings.getInt("LOAD_DURATION_SECONDS", 60);
+        int concurrency = AppSettings.getInt("LOAD_CONCURRENCY", 64);
+        Map<Kind, Integer> mix = new EnumMap<>(Kind.class);
+        mix.put(Kind.COMMAND, AppSettings.getInt("LOAD_MIX_COMMAND", 40));
+        mix.put(Kind.ACTION, AppSettings.getInt("LOAD_MIX_ACTION", 30));
+        mix.put(Kind.HOME, AppSettings.getInt("LOAD_MIX_HOME", 30));
+
+        StubSwarmServer stub = null;
+        String slackApiUrl = AppSettings.getString("LOAD_SLACK_API_URL", null);
+        String respondUrl = AppSettings.getString("LOAD_SLACK_RESPOND_URL", null);
+        if (AppSettings.getString("SWARM_BASE_URL", null) == null) {
+            stub = StubSwarmServer.fromSettings(0);
+            stub.start();
+            // read by SlackApp when it is first used
+            System.setProperty("SWARM_BASE_URL", stub.getBaseUrl());
+            slackApiUrl = stub.getSlackApiUrl();
+            respondUrl = stub.getSlackRespondUrl();
+        }
+        int slackUsers = AppSettings.getInt("LOAD_SLACK_USERS", stub != null ? stub.getUserCount() : 500);
+        int reviewCount = AppSettings.getInt("LOAD_REVIEWS", stub != null ? stub.getReviewCount() : 10000);
+
+        SlackConfig slackConfig = new SlackConfig();
+        if (slackApiUrl != null) slackConfig.setMethodsEndpointUrlPrefix(slackApiUrl);
+        App app = new App(AppConfig.builder()
+                .singleTeamBotToken("xoxb-load-test")
+                .signingSecret(SIGNING_SECRET)
+                .slack(Slack.getInstance(slackConfig))
+                .build());
+        SlackApp.startSync();
+        SlackApp.registerHandlers(app);
+        app.start();
+
+        LoadDriver driver = new LoadDriver(app, respondUrl, slackUsers, reviewCount, mix);
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency,
+                new BasicThreadFactory.Builder().namingPattern("load-driver-%d").daemon(true).build());
+        try {
+            log.info("Warming up for {}s at {} requests/s", warmupSeconds, rate);
+            driver.run(workers, rate, warmupSeconds);
+            log.info("Measuring for {}s at {} requests/s", durationSeconds, rate);
+            long start = System.nanoTime();
+            Map<Kind, LatencyRecorder> results = driver.run(workers, rate, durationSeconds);
+            report(results, (System.nanoTime() - start) / 1e9);
+        } finally {
+            workers.shutdownNow();
+            app.stop();
+            if (stub != null) stub.stop();
+        }
+        log.info("metrics: {}", Metrics.summary());
+        System.exit(0);
+    }
+
+    /**
+     * Sends {@code rate * seconds} requests on schedule and waits for all of them to be acked.
+     */
+    private Map<Kind, LatencyRecorder> run(ExecutorService workers, int rate, int seconds) throws InterruptedException {
+        int total = rate * seconds;
+        Map<Kind, LatencyRecorder> results = new EnumMap<>(Kind.class);
+        for (Kind kind : Kind.values()) {
+            results.put(kind, new LatencyRecorder(total));
+        }
+        int mixTotal = mix.values().stream().mapToInt(Integer::intValue).sum();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        AtomicInteger pending = new AtomicInteger(total);
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            long scheduledAt = start + i * intervalNanos;
+            long wait = scheduledAt - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+
+            Kind kind = pickKind(mixTotal);
+            workers.execute(() -> {
+                try {
+                    send(kind, scheduledAt, results.get(kind));
+                } finally {
+                    pending.decrementAndGet();
+                }
+            });
+        }
+        while (pending.get() > 0) {
+            Thread.sleep(10);
+        }
+        return results;
+    }
+
+    private Kind pickKind(int mixTotal) {
+        int pick = ThreadLocalRandom.current().nextInt(Math.max(1, mixTotal));
+        for (Map.Entry<Kind, Integer> entry : mix.entrySet()) {
+            pick -= entry.getValue();
+            if (pick < 0) return entry.getKey();
+        }
+        return Kind.COMMAND;
+    }
+
+    private void send(Kind kind, long scheduledAt, LatencyRecorder recorder) {
+        boolean ok = false;
+        try {
+            Response response = app.run(buildRequest(kind));
+            ok = response != null && (response.getStatusCode() == null || response.getStatusCode() < 400);
+        } catch (Exception e) {
+            log.debug("{} request failed", kind, e);
+        }
+        recorder.record(System.nanoTime() - scheduledAt, ok);
+    }
+
+    private Request<?> buildRequest(Kind kind) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int user = random.nextInt(slackUsers);
+        long reviewId = StubSwarmServer.FIRST_REVIEW_ID + random.nextInt(reviewCount);
+        String triggerId = user + "." + System.nanoTime();
+        switch (kind) {
+            case ACTION: {
+                String action = random.nextInt(4) == 0
+                        ? "{\"type\":\"static_select\",\"action_id\":\"change_review_type\",\"block_id\":\"review_type\","
+                        + "\"selected_option\":{\"value\":\"" + (random.nextBoolean() ? "AUTHOR" : "PARTICIPANT") + "\"}}"
+                        : "{\"type\":\"button\",\"action_id\":\"details_" + reviewId + "\",\"block_id\":\"review\","
+                        + "\"value\":\"details_" + reviewId + "\"}";
+                String payload = "{\"type\":\"block_actions\",\"team\":{\"id\":\"T00000000\"},"
+                        + "\"user\":{\"id\":\"U" + user + "\",\"username\":\"user" + user + "\"},"
+                        + "\"api_app_id\":\"A00000000\",\"trigger_id\":\"" + triggerId + "\","
+                        + "\"response_url\":\"" + respondUrl + "\","
+                        + "\"view\":{\"id\":\"V00000000\",\"type\":\"home\"},\"actions\":[" + action + "]}";
+                String body = "payload=" + URLEncoder.encode(payload, StandardCharsets.UTF_8);
+                return new BlockActionRequest(body, payload, signedHeaders(body));
+            }
+            case HOME: {
+                String body = "{\"type\":\"event_callback\",\"team_id\":\"T00000000\",\"api_app_id\":\"A00000000\","
+                        + "\"event_id\":\"Ev" + triggerId.replace(".", "") + "\",\"event_time\":"
+                        + System.currentTimeMillis() / 1000 + ",\"event\":{\"type\":\"app_home_opened\","
+                        + "\"user\":\"U" + user + "\",\"channel\":\"D" + user + "\",\"tab\":\"home\"}}";
+                return new EventRequest(body, signedHeaders(body));
+            }
+            case COMMAND:
+            default: {
+                int pick = random.nextInt(10);
+                String command = pick < 6 ? "/changelist" : pick < 9 ? "/user" : "/hello";
+                String text = pick < 6 ? String.valueOf(reviewId)
+                        : "user" + random.nextInt(slackUsers) + " user" + random.nextInt(slackUsers);
+                String body = "team_id=T00000000&channel_id=C00000000&channel_name=load-test"
+                        + "&user_id=U" + user + "&user_name=user" + user
+                        + "&command=" + URLEncoder.encode(command, StandardCharsets.UTF_8)
+                        + "&text=" + URLEncoder.encode(text, StandardCharsets.UTF_8)
+                        + "&response_url=" + URLEncoder.encode(String.valueOf(respondUrl), StandardCharsets.UTF_8)
+                        + "&trigger_id=" + triggerId;
+                return new SlashCommandRequest(body, signedHeaders(body));
+            }
+        }
+    }
+
+    /**
+     * Headers of a request signed the way Slack signs them, so Bolt's request verification runs as in production.
+     */
+    static RequestHeaders signedHeaders(String body) {
+        String timestamp = String.valueOf(System.currentTimeMillis() / 1000);
+        String signature;
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(SIGNING_SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] digest = mac.doFinal(("v0:" + timestamp + ":" + body).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder("v0=");
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            signature = hex.toString();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+        Map<String, List<String>> headers = new HashMap<>();
+        headers.put("X-Slack-Request-Timestamp", Collections.singletonList(timestamp));
+        headers.put("X-Slack-Signature", Collections.singletonList(signature));
+        return new RequestHeaders(headers);
+    }
+
+    /**
+     * @param elapsedSeconds time from the first send until the last ack, so throughput drops when the app falls behind
+     */
+    private static void report(Map<Kind, LatencyRecorder> results, double elapsedSeconds) {
+        LatencyRecorder all = new LatencyRecorder(results.values().stream().mapToInt(LatencyRecorder::size).sum());
+        results.values().forEach(all::addAll);
+        StringBuilder sb = new StringBuilder(String.format("%n%-8s %8s %8s %10s %9s %9s %9s %9s%n",
+                "kind", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        results.forEach((kind, recorder) -> sb.append(recorder.format(kind.name().toLowerCase(), elapsedSeconds)));
+        sb.append(all.format("all", elapsedSeconds));
+        log.info("ack latency:{}", sb);
+    }
+
+    /**
+     * Keeps every latency of a run; percentiles are read off the sorted values.
+     */
+    private static final class LatencyRecorder {
+        private final long[] latencies;
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicInteger errors = new AtomicInteger();
+
+        LatencyRecorder(int capacity) {
+            this.latencies = new long[capacity];
+        }
+
+        void record(long nanos, boolean ok) {
+            latencies[count.getAndIncrement()] = nanos;
+            if (!ok) errors.incrementAndGet();
+        }
+
+        void addAll(LatencyRecorder other) {
+            for (int i = 0; i < other.size(); i++) {
+                latencies[count.getAndIncrement()] = other.latencies[i];
+            }
+            errors.addAndGet(other.errors.get());
+        }
+
+        int size() {
+            return count.get();
+        }
+
+        String format(String name, double elapsedSeconds) {
+            long[] sorted = Arrays.copyOf(latencies, size());
+            Arrays.sort(sorted);
+            return String.format("%-8s %8d %8d %10.1f %9.1f %9.1f %9.1f %9.1f%n", name, sorted.length, errors.get(),
+                    sorted.length / elapsedSeconds, millis(sorted, 0.5), millis(sorted, 0.99),
+                    millis(sorted, 0.999), millis(sorted, 1.0));
+        }
+
+        private static double millis(long[] sorted, double quantile) {
+            if (sorted.length == 0) return 0;
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+        }
+    }
+
+}
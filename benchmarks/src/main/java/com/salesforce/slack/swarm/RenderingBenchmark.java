@@ -0,0 +1,92 @@
+package com.salesforce.slack.swarm;
+
+import com.google.gson.Gson;
+import com.salesforce.slack.swarm.client.SwarmClient;
+import com.salesforce.slack.swarm.client.SwarmJson;
+import com.salesforce.slack.swarm.model.Review;
+import com.salesforce.slack.swarm.model.ReviewsData;
+import com.slack.api.model.block.LayoutBlock;
+import com.slack.api.model.view.View;
+import com.slack.api.util.json.GsonFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.salesforce.slack.swarm.SlackApp.REVIEW_TYPE.PARTICIPANT;
+
+/**
+ * Block Kit rendering of the Home tab and the review details modal, from reviews decoded the way the app decodes
+ * them. Per-review benchmarks walk the whole page so the result is the cost of rendering {@code reviewCount}
+ * reviews. The Home view shows at most {@link SwarmViews#MAX_HOME_REVIEWS} reviews, so larger counts would only
+ * measure the same view again.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RenderingBenchmark {
+
+    private static final Gson SLACK_GSON = GsonFactory.createSnakeCase();
+    private static final String REVIEW_URL = SwarmClient.DEFAULT_BASE_URL + "/api/v9/reviews/";
+
+    /**
+     * One Home page, and a full Home view of {@link SwarmViews#MAX_HOME_REVIEWS}.
+     */
+    @Param({"5", "23"})
+    private int reviewCount;
+
+    private ReviewsData reviewsData;
+    private View homeView;
+
+    @Setup
+    public void setUp() {
+        if (reviewCount > SwarmViews.MAX_HOME_REVIEWS) {
+            throw new IllegalArgumentException("The Home view shows at most " + SwarmViews.MAX_HOME_REVIEWS
+                    + " reviews");
+        }
+        reviewsData = SwarmJson.GSON.fromJson(SwarmPayloads.reviewsJson(reviewCount), ReviewsData.class);
+        homeView = SwarmViews.buildHomeView(REVIEW_URL, PARTICIPANT, reviewsData);
+    }
+
+    @Benchmark
+    public View buildHomeView() {
+        return SwarmViews.buildHomeView(REVIEW_URL, PARTICIPANT, reviewsData);
+    }
+
+    /**
+     * Serialization the way a rendered Home view is sent to {@code views.publish}.
+     */
+    @Benchmark
+    public String serializeHomeView() {
+        return SLACK_GSON.toJson(homeView);
+    }
+
+    @Benchmark
+    public List<LayoutBlock> buildCompactLayoutForReview() {
+        List<LayoutBlock> blocks = new ArrayList<>(reviewCount * 4);
+        for (Review review : reviewsData.getReviews()) {
+            SwarmViews.addCompactLayoutForReview(REVIEW_URL, review, blocks);
+        }
+        return blocks;
+    }
+
+    @Benchmark
+    public void getReviewDescription(Blackhole blackhole) {
+        for (Review review : reviewsData.getReviews()) {
+            blackhole.consume(SwarmViews.getReviewDescription(review));
+        }
+    }
+
+    @Benchmark
+    public void buildModalView(Blackhole blackhole) {
+        for (Review review : reviewsData.getReviews()) {
+            blackhole.consume(SwarmViews.buildModalView(review));
+        }
+    }
+
+}
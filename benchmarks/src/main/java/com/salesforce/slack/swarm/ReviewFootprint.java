@@ -0,0 +1,77 @@
+package com.salesforce.slack.swarm;
+
+import com.salesforce.slack.swarm.client.SwarmJson;
+import com.salesforce.slack.swarm.config.AppSettings;
+import com.salesforce.slack.swarm.model.PackedReview;
+import com.salesforce.slack.swarm.model.Review;
+import com.salesforce.slack.swarm.model.ReviewsData;
+import com.salesforce.slack.swarm.store.ReviewStore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Retained heap of reviews held as decoded {@link Review} objects, by id the way the review store held them, and
+ * as {@link PackedReview}s in {@link ReviewStore}. Reviews are decoded from generated Swarm responses the way the
+ * app decodes them; each figure is the used heap after a full GC with the structure alive, minus the used heap
+ * before it was built, so the shared string pool is included in the packed figure.
+ * <p>
+ * Run it with {@code -XX:+UseG1GC} or {@code -XX:+UseParallelGC}: the serial collector, which the JVM picks on
+ * a single CPU, reports unsteady heap use after {@code System.gc()}.
+ */
+@Slf4j
+public class ReviewFootprint {
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    public static void main(String[] args) {
+        StringBuilder report = new StringBuilder(String.format("%n%-10s %14s %14s %14s %14s %8s%n",
+                "reviews", "Review MB", "packed MB", "Review B/rev", "packed B/rev", "ratio"));
+        for (String count : AppSettings.getString("FOOTPRINT_REVIEWS", "10000,100000").split(",")) {
+            report.append(measure(Integer.parseInt(count.trim())));
+        }
+        log.info("review heap footprint:{}", report);
+    }
+
+    private static String measure(int reviewCount) {
+        String json = SwarmPayloads.reviewsJson(reviewCount);
+
+        long before = usedHeap();
+        Map<Long, Review> decoded = new HashMap<>();
+        decode(json).forEach(review -> decoded.put(review.getId(), review));
+        long reviewBytes = usedHeap() - before;
+        if (decoded.size() != reviewCount) throw new IllegalStateException("decoded " + decoded.size());
+        decoded.clear();
+
+        before = usedHeap();
+        ReviewStore store = new ReviewStore();
+        decode(json).forEach(store::put);
+        long packedBytes = usedHeap() - before;
+        if (store.size() != reviewCount) throw new IllegalStateException("stored " + store.size());
+
+        return String.format("%-10d %14.1f %14.1f %14d %14d %8.1f%n", reviewCount, reviewBytes / 1e6,
+                packedBytes / 1e6, reviewBytes / reviewCount, packedBytes / reviewCount,
+                (double) reviewBytes / packedBytes);
+    }
+
+    private static List<Review> decode(String json) {
+        return SwarmJson.GSON.fromJson(json, ReviewsData.class).getReviews();
+    }
+
+    private static long usedHeap() {
+        long used = Long.MAX_VALUE;
+        // a few rounds, until nothing more is freed
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            long now = MEMORY.getHeapMemoryUsage().getUsed();
+            if (now >= used) break;
+            used = now;
+        }
+        return used;
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.salesforce.slack.swarm;
+
+import com.salesforce.slack.swarm.client.SwarmJson;
+import com.salesforce.slack.swarm.model.Review;
+import com.salesforce.slack.swarm.model.ReviewsData;
+import com.salesforce.slack.swarm.store.ReviewIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Indexing and querying of the review index behind {@code /changelist search}, over generated reviews decoded the
+ * way the app decodes them. {@code indexAll} builds the index of the whole corpus, as after a first full sync;
+ * {@code search} runs one query, from a word most reviews contain to a rare work item number, with prefixes and
+ * filters, and returns the best 10 like the command does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class SearchBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Corpus {
+        @Param({"100000"})
+        private int reviewCount;
+
+        private List<Review> reviews;
+        private ReviewIndex index;
+
+        @Setup
+        public void setUp() {
+            reviews = SwarmJson.GSON.fromJson(SwarmPayloads.reviewsJson(reviewCount), ReviewsData.class).getReviews();
+            index = index(reviews);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Query {
+        @Param({"flaky", "8012345", "dep*", "state:needsReview author:user7", "flaky sync state:needsReview",
+                "participant:user42 retr*"})
+        private String query;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ReviewIndex indexAll(Corpus corpus) {
+        return index(corpus.reviews);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public ReviewIndex.Hits search(Corpus corpus, Query query) {
+        return corpus.index.search(query.query, 10);
+    }
+
+    private static ReviewIndex index(List<Review> reviews) {
+        ReviewIndex index = new ReviewIndex();
+        reviews.forEach(review -> index.update(null, review));
+        return index;
+    }
+
+}
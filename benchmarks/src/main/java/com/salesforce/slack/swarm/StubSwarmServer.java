@@ -0,0 +1,287 @@
+package com.salesforce.slack.swarm;
+
+import com.salesforce.slack.swarm.config.AppSettings;
+import com.salesforce.slack.swarm.metrics.Metrics;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.glassfish.grizzly.http.server.HttpHandler;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.Request;
+import org.glassfish.grizzly.http.server.Response;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local stand-in for Swarm, for load tests. Serves the review, review list and user endpoints the app calls from
+ * generated data, with configurable latency and error rate. It also answers the Slack Web API methods and
+ * {@code response_url} posts the app makes, so a load test needs no network access.
+ * <p>
+ * Run it on its own and point the app at it with {@code SWARM_BASE_URL}, or let {@link LoadDriver} start it.
+ */
+@Slf4j
+public class StubSwarmServer {
+
+    static final long FIRST_REVIEW_ID = 1_000_000L;
+    static final String SLACK_API_PATH = "/slack/api/";
+    static final String SLACK_RESPOND_PATH = "/slack/respond";
+
+    private static final String REVIEWS_PATH = "/api/v9/reviews";
+    private static final String USERS_PATH = "/api/v9/users";
+
+    private final int port;
+    private final int reviewCount;
+    private final int userCount;
+    private final long latencyMillis;
+    private final long latencyJitterMillis;
+    private final int errorPercent;
+    private final long slackLatencyMillis;
+
+    private final String[] reviews;
+    private final Map<String, List<Integer>> reviewsByAuthor = new HashMap<>();
+    private final Map<String, List<Integer>> reviewsByParticipant = new HashMap<>();
+    private final Map<String, String> users = new HashMap<>();
+    private final ScheduledExecutorService responder = Executors.newScheduledThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()),
+            new BasicThreadFactory.Builder().namingPattern("stub-swarm-responder-%d").daemon(true).build());
+    private HttpServer server;
+
+    @Builder
+    private StubSwarmServer(int port, int reviewCount, int userCount, long latencyMillis, long latencyJitterMillis,
+                            int errorPercent, long slackLatencyMillis) {
+        this.port = port;
+        this.reviewCount = reviewCount;
+        this.userCount = userCount;
+        this.latencyMillis = latencyMillis;
+        this.latencyJitterMillis = latencyJitterMillis;
+        this.errorPercent = errorPercent;
+        this.slackLatencyMillis = slackLatencyMillis;
+        this.reviews = new String[reviewCount];
+        generate();
+    }
+
+    /**
+     * A server configured from the {@code STUB_SWARM_*} settings; port 0 picks a free port.
+     */
+    static StubSwarmServer fromSettings(int defaultPort) {
+        return StubSwarmServer.builder()
+                .port(AppSettings.getInt("STUB_SWARM_PORT", defaultPort))
+                .reviewCount(AppSettings.getInt("STUB_SWARM_REVIEWS", 10000))
+                .userCount(AppSettings.getInt("STUB_SWARM_USERS", 500))
+                .latencyMillis(AppSettings.getLong("STUB_SWARM_LATENCY_MS", 50))
+                .latencyJitterMillis(AppSettings.getLong("STUB_SWARM_LATENCY_JITTER_MS", 50))
+                .errorPercent(AppSettings.getInt("STUB_SWARM_ERROR_PERCENT", 0))
+                .slackLatencyMillis(AppSettings.getLong("STUB_SLACK_LATENCY_MS", 20))
+                .build();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        StubSwarmServer stub = fromSettings(8089);
+        stub.start();
+        log.info("Stub Swarm serving {} reviews of {} users on {}", stub.reviewCount, stub.userCount, stub.getBaseUrl());
+        Thread.currentThread().join();
+    }
+
+    void start() throws IOException {
+        int listenPort = port != 0 ? port : freePort();
+        server = HttpServer.createSimpleServer(null, "localhost", listenPort);
+        server.getServerConfiguration().addHttpHandler(new HttpHandler() {
+            @Override
+            public void service(Request request, Response response) {
+                handle(request, response);
+            }
+        }, "/");
+        server.start();
+    }
+
+    void stop() {
+        if (server != null) server.shutdownNow();
+        responder.shutdownNow();
+    }
+
+    String getBaseUrl() {
+        return "http://localhost:" + server.getListeners().iterator().next().getPort();
+    }
+
+    String getSlackApiUrl() {
+        return getBaseUrl() + SLACK_API_PATH;
+    }
+
+    String getSlackRespondUrl() {
+        return getBaseUrl() + SLACK_RESPOND_PATH;
+    }
+
+    int getReviewCount() {
+        return reviewCount;
+    }
+
+    int getUserCount() {
+        return userCount;
+    }
+
+    private void generate() {
+        Random random = new Random(42);
+        for (int i = 0; i < reviewCount; i++) {
+            String author = SwarmPayloads.author(random, userCount);
+            List<String> participants = SwarmPayloads.participants(random, userCount);
+            reviews[i] = SwarmPayloads.reviewJson(FIRST_REVIEW_ID + i, author, participants, random);
+            reviewsByAuthor.computeIfAbsent(author, a -> new ArrayList<>()).add(i);
+            for (String participant : participants) {
+                reviewsByParticipant.computeIfAbsent(participant, p -> new ArrayList<>()).add(i);
+            }
+        }
+        for (int i = 0; i < userCount; i++) {
+            String username = SwarmPayloads.username(i);
+            users.put(username, SwarmPayloads.userJson(username, random));
+        }
+    }
+
+    /**
+     * Answers after the configured latency without holding a server thread while waiting.
+     */
+    private void handle(Request request, Response response) {
+        String path = request.getRequestURI();
+        boolean slack = path.startsWith("/slack/");
+        String endpoint = slack ? "slack" : path.startsWith(USERS_PATH) ? "users"
+                : path.equals(REVIEWS_PATH) ? "reviews" : path.startsWith(REVIEWS_PATH + "/") ? "review" : "other";
+        Metrics.counter(Metrics.withLabel("stub_swarm_requests_total", "endpoint", endpoint)).inc();
+
+        int status;
+        String body;
+        if (!slack && ThreadLocalRandom.current().nextInt(100) < errorPercent) {
+            Metrics.counter("stub_swarm_injected_errors_total").inc();
+            status = 503;
+            body = "{\"error\":\"Service Unavailable\"}";
+        } else {
+            status = 200;
+            switch (endpoint) {
+                case "slack":
+                    body = slackResponse(path, request);
+                    break;
+                case "users":
+                    body = usersResponse(request.getParameter("users"));
+                    break;
+                case "reviews":
+                    body = reviewsResponse(request);
+                    break;
+                case "review":
+                    body = reviewResponse(path.substring(REVIEWS_PATH.length() + 1));
+                    if (body == null) {
+                        status = 404;
+                        body = "{\"error\":\"Not Found\"}";
+                    }
+                    break;
+                default:
+                    status = 404;
+                    body = "{\"error\":\"Not Found\"}";
+            }
+        }
+
+        long delay = slack ? slackLatencyMillis
+                : latencyMillis + (latencyJitterMillis > 0 ? ThreadLocalRandom.current().nextLong(latencyJitterMillis) : 0);
+        int responseStatus = status;
+        String responseBody = body;
+        response.suspend();
+        responder.schedule(() -> {
+            try {
+                response.setStatus(responseStatus);
+                response.setContentType("application/json");
+                response.setCharacterEncoding("UTF-8");
+                response.getWriter().write(responseBody);
+            } catch (IOException e) {
+                log.warn("Could not answer {}", path, e);
+            } finally {
+                response.resume();
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * A review, also as the answer to changing its state ({@code reviews/<id>/state/}), which the stub accepts
+     * without changing anything.
+     */
+    private String reviewResponse(String path) {
+        String number = StringUtils.removeEnd(StringUtils.removeEnd(path, "/"), "/state");
+        if (!NumberUtils.isDigits(number)) return null;
+        long index = Long.parseLong(number) - FIRST_REVIEW_ID;
+        return index >= 0 && index < reviewCount ? "{\"review\":" + reviews[(int) index] + "}" : null;
+    }
+
+    /**
+     * Reviews of an author or participant, newest first; {@code after} continues below the given review id.
+     */
+    private String reviewsResponse(Request request) {
+        int max = NumberUtils.toInt(request.getParameter("max"), 50);
+        long after = NumberUtils.toLong(request.getParameter("after"), Long.MAX_VALUE);
+        String author = request.getParameter("author");
+        String participant = request.getParameter("participants");
+        List<Integer> matching = author != null ? reviewsByAuthor.get(author)
+                : participant != null ? reviewsByParticipant.get(participant) : null;
+        if (matching == null) matching = Collections.emptyList();
+
+        StringBuilder sb = new StringBuilder("{\"reviews\":[");
+        long lastSeen = -1;
+        int count = 0;
+        for (int i = matching.size() - 1; i >= 0 && count < max; i--) {
+            long id = FIRST_REVIEW_ID + matching.get(i);
+            if (id >= after) continue;
+            if (count++ > 0) sb.append(',');
+            sb.append(reviews[matching.get(i)]);
+            lastSeen = id;
+        }
+        sb.append("],\"lastSeen\":").append(lastSeen >= 0 ? String.valueOf(lastSeen) : "null");
+        sb.append(",\"totalCount\":").append(matching.size()).append('}');
+        return sb.toString();
+    }
+
+    private String usersResponse(String usernames) {
+        StringJoiner joiner = new StringJoiner(",", "[", "]");
+        for (String username : StringUtils.split(StringUtils.defaultString(usernames), ',')) {
+            String user = users.get(username);
+            if (user != null) joiner.add(user);
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * Minimal successful answers to the Slack Web API methods the app and Bolt call; Slack users {@code U<n>}
+     * have the email of Swarm user {@code user<n>}.
+     */
+    private String slackResponse(String path, Request request) {
+        if (path.equals(SLACK_RESPOND_PATH)) {
+            return "ok";
+        }
+        String method = path.substring(SLACK_API_PATH.length());
+        switch (method) {
+            case "auth.test":
+                return "{\"ok\":true,\"url\":\"https://stub.slack.com/\",\"team\":\"Stub\",\"user\":\"swarm\","
+                        + "\"team_id\":\"T00000000\",\"user_id\":\"U00000000\",\"bot_id\":\"B00000000\"}";
+            case "users.info":
+                String slackUser = StringUtils.defaultString(request.getParameter("user"));
+                int userNumber = NumberUtils.toInt(StringUtils.substring(slackUser, 1), 0);
+                String email = SwarmPayloads.username(userNumber) + "@salesforce.com";
+                return "{\"ok\":true,\"user\":{\"id\":\"" + slackUser + "\",\"profile\":{\"email\":\"" + email + "\"}}}";
+            case "views.open":
+            case "views.publish":
+            case "views.update":
+                return "{\"ok\":true,\"view\":{\"id\":\"V00000000\"}}";
+            default:
+                return "{\"ok\":false,\"error\":\"unknown_method\"}";
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+}
@@ -0,0 +1,198 @@
+package com.salesforce.slack.swarm;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates Swarm API responses shaped like the real ones: every review carries the fields the app skips
+ * (versions, groups, projects, test and deploy details) and participants with votes. Generation is seeded, so
+ * every run decodes and renders the same data.
+ */
+final class SwarmPayloads {
+
+    private static final String[] STATES = {"needsReview", "needsRevision", "approved", "archived", "rejected"};
+    private static final String[] STATE_LABELS = {"Needs Review", "Needs Revision", "Approved", "Archived", "Rejected"};
+    private static final String[] WORDS = {"fix", "flaky", "test", "in", "the", "sync", "engine", "add", "retry",
+            "for", "deploy", "step", "remove", "dead", "code", "from", "home", "view", "handle", "null", "review"};
+
+    private static final long SEED = 42;
+    private static final int USER_POOL = 200;
+    private static final int PARTICIPANTS_PER_REVIEW = 6;
+
+    private SwarmPayloads() {
+    }
+
+    static String reviewsJson(int reviewCount) {
+        Random random = new Random(SEED);
+        return write(json -> {
+            json.beginObject();
+            json.name("lastSeen").value(1_000_000 + reviewCount - 1);
+            json.name("reviews").beginArray();
+            for (int i = 0; i < reviewCount; i++) {
+                writeReview(json, 1_000_000L + i, author(random, USER_POOL), participants(random, USER_POOL), random);
+            }
+            json.endArray();
+            json.name("totalCount").value(reviewCount);
+            json.endObject();
+        });
+    }
+
+    static String reviewDetailsJson() {
+        Random random = new Random(SEED);
+        return write(json -> {
+            json.beginObject();
+            json.name("review");
+            writeReview(json, 1_000_000L, author(random, USER_POOL), participants(random, USER_POOL), random);
+            json.endObject();
+        });
+    }
+
+    static String usersJson(int userCount) {
+        Random random = new Random(SEED);
+        return write(json -> {
+            json.beginArray();
+            for (int i = 0; i < userCount; i++) {
+                writeUser(json, username(i), random);
+            }
+            json.endArray();
+        });
+    }
+
+    /**
+     * One review as returned in a review list; {@code participants} must be distinct.
+     */
+    static String reviewJson(long id, String author, List<String> participants, Random random) {
+        return write(json -> writeReview(json, id, author, participants, random));
+    }
+
+    static String userJson(String username, Random random) {
+        return write(json -> writeUser(json, username, random));
+    }
+
+    static String author(Random random, int userCount) {
+        return username(random.nextInt(userCount));
+    }
+
+    static List<String> participants(Random random, int userCount) {
+        int count = Math.min(PARTICIPANTS_PER_REVIEW, userCount);
+        int first = random.nextInt(userCount);
+        List<String> participants = new ArrayList<>(count);
+        for (int p = 0; p < count; p++) {
+            participants.add(username((first + p) % userCount));
+        }
+        return participants;
+    }
+
+    static String username(int i) {
+        return "user" + i;
+    }
+
+    private static void writeUser(JsonWriter json, String username, Random random) throws IOException {
+        json.beginObject();
+        json.name("User").value(username);
+        json.name("Type").value("standard");
+        json.name("Email").value(username + "@salesforce.com");
+        json.name("Update").value("2020/11/02 10:15:00");
+        json.name("Access").value("2020/11/30 08:01:12");
+        json.name("FullName").value("User " + username.substring(4));
+        json.name("JobView").value("");
+        json.name("AuthMethod").value("perforce");
+        json.name("Reviews").beginArray();
+        for (int r = random.nextInt(4); r > 0; r--) {
+            json.value("//depot/main/project" + random.nextInt(50) + "/...");
+        }
+        json.endArray();
+        json.endObject();
+    }
+
+    private static void writeReview(JsonWriter json, long id, String author, List<String> participants, Random random)
+            throws IOException {
+        int state = random.nextInt(STATES.length);
+        long created = 1_600_000_000L + random.nextInt(30_000_000);
+
+        json.beginObject();
+        json.name("id").value(id);
+        json.name("author").value(author);
+        json.name("changes").beginArray().value(id + 1).value(id + 7).endArray();
+        json.name("comments").beginArray().value(random.nextInt(20)).value(random.nextInt(5)).endArray();
+        json.name("commits").beginArray().value(id + 7).endArray();
+        json.name("commitStatus").beginArray().endArray();
+        json.name("created").value(created);
+        json.name("deployDetails").beginArray().endArray();
+        json.name("deployStatus").nullValue();
+        json.name("description").value(description(id, random));
+        json.name("groups").beginArray().value("swarm-project-core").value("swarm-group-reviewers").endArray();
+        json.name("participants").beginObject();
+        for (int p = 0; p < participants.size(); p++) {
+            json.name(participants.get(p)).beginObject();
+            json.name("vote").beginObject()
+                    .name("value").value(random.nextInt(3) - 1)
+                    .name("version").value(1 + random.nextInt(3))
+                    .name("isStale").value(random.nextBoolean())
+                    .endObject();
+            json.name("required").value(p == 0);
+            json.name("notificationsDisabled").value(false);
+            json.endObject();
+        }
+        json.endObject();
+        json.name("pending").value(false);
+        json.name("projects").beginObject()
+                .name("core").beginArray().value("main").value("patch").endArray()
+                .endObject();
+        json.name("state").value(STATES[state]);
+        json.name("stateLabel").value(STATE_LABELS[state]);
+        json.name("testDetails").beginObject()
+                .name("url").value("https://ci.example.com/job/" + id)
+                .name("startTimes").beginArray().value(created + 60).endArray()
+                .name("endTimes").beginArray().value(created + 900).endArray()
+                .endObject();
+        json.name("testStatus").value(random.nextBoolean() ? "pass" : "fail");
+        json.name("type").value("default");
+        json.name("updated").value(created + random.nextInt(1_000_000));
+        json.name("versions").beginArray();
+        for (int v = 1 + random.nextInt(3); v > 0; v--) {
+            json.beginObject()
+                    .name("difference").value(1)
+                    .name("stream").nullValue()
+                    .name("change").value(id + v)
+                    .name("user").value(author)
+                    .name("time").value(created + v * 3600L)
+                    .name("pending").value(false)
+                    .name("archiveChange").value(id + v + 1)
+                    .endObject();
+        }
+        json.endArray();
+        json.endObject();
+    }
+
+    private static String description(long id, Random random) {
+        StringBuilder sb = new StringBuilder("@W-").append(8_000_000 + id % 1_000_000).append(' ');
+        int words = 8 + random.nextInt(40);
+        for (int w = 0; w < words; w++) {
+            if (w > 0) sb.append(w % 12 == 0 ? '\n' : ' ');
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static String write(JsonBody body) {
+        StringWriter out = new StringWriter();
+        try (JsonWriter json = new JsonWriter(out)) {
+            body.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    private interface JsonBody {
+        void write(JsonWriter json) throws IOException;
+    }
+
+}
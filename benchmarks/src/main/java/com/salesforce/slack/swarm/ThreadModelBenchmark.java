@@ -0,0 +1,202 @@
+package com.salesforce.slack.swarm;
+
+import com.salesforce.slack.swarm.async.VirtualThreads;
+import com.salesforce.slack.swarm.client.ResilienceSettings;
+import com.salesforce.slack.swarm.client.SwarmClient;
+import com.salesforce.slack.swarm.config.AppSettings;
+import com.salesforce.slack.swarm.model.Review;
+import com.slack.api.Slack;
+import com.slack.api.SlackConfig;
+import com.slack.api.methods.MethodsClient;
+import com.slack.api.methods.response.views.ViewsOpenResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares how many concurrent Slack requests the platform-thread and the virtual-thread model carry. Every
+ * simulated request does what the details handler does: a blocking Swarm call for a review, then a blocking
+ * {@code views.open}, both against an in-process {@link StubSwarmServer}.
+ * <p>
+ * For each concurrency level all requests are started at once on a fixed pool of platform threads (today's
+ * model), on one platform thread each, and on one virtual thread each (JDK 21+ only). Reported are the time until
+ * the last request finished, throughput, and the peak thread count, heap and resident memory above the idle
+ * baseline, sampled while the requests run.
+ */
+@Slf4j
+public class ThreadModelBenchmark {
+
+    private enum Model {
+        PLATFORM_POOL, PLATFORM_PER_REQUEST, VIRTUAL_PER_REQUEST
+    }
+
+    private final SwarmClient swarm;
+    private final MethodsClient slack;
+    private final int poolSize;
+    private final AtomicInteger nextReview = new AtomicInteger();
+    private final int reviewCount;
+
+    private ThreadModelBenchmark(StubSwarmServer stub, int poolSize, int maxRequests) {
+        // the bulkhead and timeouts would otherwise cap or fail the concurrency under test
+        this.swarm = new SwarmClient(stub.getBaseUrl(), "bench", "bench", ResilienceSettings.builder()
+                .maxConcurrentCalls(maxRequests)
+                .bulkheadWaitMillis(60_000)
+                .interactiveTimeoutMillis(120_000)
+                .maxIdleConnections(maxRequests)
+                .maxAttempts(1)
+                .circuitFailureThreshold(Integer.MAX_VALUE)
+                .build());
+        SlackConfig slackConfig = new SlackConfig();
+        slackConfig.setMethodsEndpointUrlPrefix(stub.getSlackApiUrl());
+        this.slack = Slack.getInstance(slackConfig).methods("xoxb-bench");
+        this.poolSize = poolSize;
+        this.reviewCount = stub.getReviewCount();
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Integer> levels = new ArrayList<>();
+        for (String level : AppSettings.getString("THREAD_BENCH_CONCURRENCY", "100,1000,4000").split(",")) {
+            levels.add(Integer.parseInt(level.trim()));
+        }
+        int poolSize = AppSettings.getInt("THREAD_BENCH_POOL_SIZE", 200);
+        int maxRequests = levels.stream().mapToInt(Integer::intValue).max().orElse(1);
+
+        StubSwarmServer stub = StubSwarmServer.fromSettings(0);
+        stub.start();
+        ThreadModelBenchmark benchmark = new ThreadModelBenchmark(stub, poolSize, maxRequests);
+        List<Model> models = new ArrayList<>(List.of(Model.PLATFORM_POOL, Model.PLATFORM_PER_REQUEST));
+        if (VirtualThreads.isAvailable()) {
+            models.add(Model.VIRTUAL_PER_REQUEST);
+        } else {
+            log.warn("Virtual threads need JDK 21 or newer, running on {}; skipping them",
+                    System.getProperty("java.version"));
+        }
+
+        StringBuilder report = new StringBuilder(String.format("%n%-22s %8s %8s %10s %10s %12s %12s %6s%n",
+                "model", "requests", "wall ms", "req/s", "threads", "heap MB", "rss MB", "errors"));
+        for (Model model : models) {
+            benchmark.run(model, Math.min(100, levels.get(0)));
+        }
+        for (int level : levels) {
+            for (Model model : models) {
+                report.append(benchmark.run(model, level));
+            }
+        }
+        log.info("thread models, poolSize={}:{}", poolSize, report);
+        stub.stop();
+        System.exit(0);
+    }
+
+    private String run(Model model, int requests) throws InterruptedException {
+        System.gc();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        int baseThreads = threads.getThreadCount();
+        long baseHeap = memory.getHeapMemoryUsage().getUsed();
+        long baseRss = residentBytes();
+
+        AtomicInteger peakThreads = new AtomicInteger();
+        AtomicLong peakHeap = new AtomicLong();
+        AtomicLong peakRss = new AtomicLong();
+        ExecutorService sampler = Executors.newSingleThreadExecutor(
+                new BasicThreadFactory.Builder().namingPattern("bench-sampler").daemon(true).build());
+        AtomicInteger errors = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(requests);
+        sampler.execute(() -> {
+            while (done.getCount() > 0) {
+                peakThreads.accumulateAndGet(threads.getThreadCount(), Math::max);
+                peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                peakRss.accumulateAndGet(residentBytes(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        ExecutorService executor = newExecutor(model);
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            executor.execute(() -> {
+                try {
+                    handleRequest();
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                    log.debug("Request failed", e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        long wallNanos = System.nanoTime() - start;
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        sampler.shutdownNow();
+
+        return String.format("%-22s %8d %8d %10.1f %10d %12.1f %12.1f %6d%n", model.name().toLowerCase(), requests,
+                TimeUnit.NANOSECONDS.toMillis(wallNanos), requests / (wallNanos / 1e9),
+                peakThreads.get() - baseThreads, (peakHeap.get() - baseHeap) / 1e6,
+                baseRss < 0 ? -1 : (peakRss.get() - baseRss) / 1e6, errors.get());
+    }
+
+    private ExecutorService newExecutor(Model model) {
+        switch (model) {
+            case PLATFORM_POOL:
+                return Executors.newFixedThreadPool(poolSize,
+                        new BasicThreadFactory.Builder().namingPattern("bench-pool-%d").daemon(true).build());
+            case PLATFORM_PER_REQUEST:
+                return Executors.newCachedThreadPool(
+                        new BasicThreadFactory.Builder().namingPattern("bench-platform-%d").daemon(true).build());
+            case VIRTUAL_PER_REQUEST:
+            default:
+                return VirtualThreads.newThreadPerTaskExecutor("bench-virtual-");
+        }
+    }
+
+    private void handleRequest() throws Exception {
+        String number = String.valueOf(StubSwarmServer.FIRST_REVIEW_ID + nextReview.getAndIncrement() % reviewCount);
+        Review review = swarm.getReview(number);
+        ViewsOpenResponse response = slack.viewsOpen(r -> r
+                .triggerId("bench")
+                .view(SwarmViews.buildModalView(review)));
+        if (!response.isOk()) {
+            throw new IOException(response.getError());
+        }
+    }
+
+    /**
+     * @return resident set size of the process on Linux, {@code -1} elsewhere
+     */
+    private static long residentBytes() {
+        Path status = Paths.get("/proc/self/status");
+        if (!Files.isReadable(status)) return -1;
+        try {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+        return -1;
+    }
+
+}
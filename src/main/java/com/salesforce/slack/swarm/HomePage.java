@@ -0,0 +1,89 @@
+package com.salesforce.slack.swarm;
+
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.util.Objects;
+
+/**
+ * Which reviews the Home tab shows: a number of pages, starting after the review {@code after} (or with the newest
+ * review when it is {@code null}). Pages are chained by the {@code lastSeen} cursor of the page before them, the
+ * same way Swarm pages its review lists.
+ * <p>
+ * A page is kept in the value of the "Load more" button as {@code after:pages}, so the button carries where it
+ * leads and the app keeps no paging state it cannot rebuild.
+ */
+final class HomePage {
+
+    static final HomePage FIRST = new HomePage(null, 1);
+
+    private final Integer after;
+    private final int pages;
+
+    HomePage(Integer after, int pages) {
+        this.after = after;
+        this.pages = pages;
+    }
+
+    Integer getAfter() {
+        return after;
+    }
+
+    int getPages() {
+        return pages;
+    }
+
+    /**
+     * One more page, or, once {@code maxPages} are shown, the same number of pages one page further on.
+     *
+     * @param firstPageLastSeen the {@code lastSeen} cursor of the first page shown now
+     */
+    HomePage next(Integer firstPageLastSeen, int maxPages) {
+        return pages < maxPages ? new HomePage(after, pages + 1) : new HomePage(firstPageLastSeen, pages);
+    }
+
+    String toValue() {
+        return (after != null ? after.toString() : "") + ":" + pages;
+    }
+
+    /**
+     * Button values come back from Slack as the user's client sent them, so a forged one must not make the app
+     * load more than {@code maxPages} pages.
+     *
+     * @return the page of a button value with at most {@code maxPages} pages, or the first page if the value is
+     * not one
+     */
+    static HomePage fromValue(String value, int maxPages) {
+        if (value == null) return FIRST;
+        int colon = value.indexOf(':');
+        if (colon < 0) return FIRST;
+        String after = value.substring(0, colon);
+        String pages = value.substring(colon + 1);
+        if (!(after.isEmpty() || NumberUtils.isDigits(after)) || !NumberUtils.isDigits(pages)) return FIRST;
+        try {
+            return new HomePage(after.isEmpty() ? null : Integer.valueOf(after),
+                    Math.max(1, Math.min(Integer.parseInt(pages), maxPages)));
+        } catch (NumberFormatException e) {
+            // more digits than an int holds
+            return FIRST;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof HomePage)) return false;
+        HomePage other = (HomePage) o;
+        return pages == other.pages && Objects.equals(after, other.after);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(after, pages);
+    }
+
+    @Override
+    public String toString() {
+        return toValue();
+    }
+
+}
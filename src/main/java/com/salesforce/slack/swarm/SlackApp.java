@@ -1,65 +1,75 @@
 package com.salesforce.slack.swarm;
 
-import com.google.gson.Gson;
+import com.salesforce.slack.swarm.async.AsyncCommandExecutor;
+import com.salesforce.slack.swarm.async.VirtualThreads;
+import com.salesforce.slack.swarm.cache.TtlLruCache;
+import com.salesforce.slack.swarm.client.ResilienceSettings;
+import com.salesforce.slack.swarm.client.ReviewStateWriter;
+import com.salesforce.slack.swarm.client.SwarmClient;
+import com.salesforce.slack.swarm.client.SwarmClient.ReviewRole;
+import com.salesforce.slack.swarm.client.SwarmClient.ReviewState;
+import com.salesforce.slack.swarm.client.SwarmJson;
+import com.salesforce.slack.swarm.client.SwarmUnavailableException;
+import com.salesforce.slack.swarm.client.UserBatcher;
+import com.salesforce.slack.swarm.config.AppSettings;
+import com.salesforce.slack.swarm.events.ReviewEventPipeline;
+import com.salesforce.slack.swarm.events.SwarmWebhookHandler;
+import com.salesforce.slack.swarm.metrics.Metrics;
+import com.salesforce.slack.swarm.metrics.MetricsHttpHandler;
 import com.salesforce.slack.swarm.model.Review;
-import com.salesforce.slack.swarm.model.ReviewDetails;
 import com.salesforce.slack.swarm.model.ReviewsData;
 import com.salesforce.slack.swarm.model.User;
+import com.salesforce.slack.swarm.store.ReviewSnapshot;
+import com.salesforce.slack.swarm.store.ReviewStore;
+import com.salesforce.slack.swarm.store.ReviewSyncEngine;
+import com.salesforce.slack.swarm.view.RenderedViewCache;
+import com.salesforce.slack.swarm.view.RenderedViewCache.RenderedView;
+import com.salesforce.slack.swarm.view.ViewPublisher;
 import com.slack.api.app_backend.slash_commands.payload.SlashCommandPayload;
 import com.slack.api.bolt.App;
 import com.slack.api.bolt.WebEndpoint;
+import com.slack.api.bolt.context.builtin.ActionContext;
 import com.slack.api.bolt.context.builtin.SlashCommandContext;
 import com.slack.api.bolt.request.builtin.SlashCommandRequest;
 import com.slack.api.bolt.response.Response;
 import com.slack.api.bolt.socket_mode.SocketModeApp;
+import com.slack.api.methods.MethodsClient;
+import com.slack.api.methods.SlackApiException;
 import com.slack.api.methods.response.views.ViewsOpenResponse;
-import com.slack.api.methods.response.views.ViewsPublishResponse;
 import com.slack.api.methods.response.views.ViewsUpdateResponse;
 import com.slack.api.model.block.LayoutBlock;
-import com.slack.api.model.block.composition.OptionObject;
-import com.slack.api.model.block.composition.PlainTextObject;
-import com.slack.api.model.block.element.BlockElement;
 import com.slack.api.model.event.AppHomeOpenedEvent;
 import com.slack.api.model.view.View;
+import com.slack.api.model.view.ViewState;
 import lombok.extern.slf4j.Slf4j;
-import okhttp3.Credentials;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.ResponseBody;
-import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.glassfish.grizzly.http.server.HttpServer;
 
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.time.Instant;
-import java.time.LocalDate;
-import java.time.ZoneId;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import static com.salesforce.slack.swarm.SlackApp.APP_TAB.HOME;
 import static com.salesforce.slack.swarm.SlackApp.REVIEW_TYPE.AUTHOR;
 import static com.salesforce.slack.swarm.SlackApp.REVIEW_TYPE.PARTICIPANT;
+import static com.salesforce.slack.swarm.SwarmViews.*;
 import static com.slack.api.model.block.Blocks.*;
 import static com.slack.api.model.block.composition.BlockCompositions.markdownText;
-import static com.slack.api.model.block.composition.BlockCompositions.plainText;
-import static com.slack.api.model.block.element.BlockElements.*;
-import static com.slack.api.model.view.Views.view;
-import static com.slack.api.model.view.Views.viewTitle;
-import static java.time.format.DateTimeFormatter.ISO_DATE;
 
 @Slf4j
 public class SlackApp {
 
-    public static final String USERS_API_URL = "https://swarm.soma.salesforce.com/api/v9/users?users=";
-    public static final String REVIEW_URL = "https://swarm.soma.salesforce.com/api/v9/reviews/";
-    public static final String REVIEW_AUTHOR_URL = "https://swarm.soma.salesforce.com/api/v9/reviews?max=5&author=";
-    public static final String REVIEW_PARTICIPANT_URL = "https://swarm.soma.salesforce.com/api/v9/reviews?max=5&participants=";
-    public static final String AUTHORIZATION_HEADER = "Authorization";
-
     enum APP_TAB {
         HOME("home"),
         MESSAGES("messages");
@@ -120,27 +130,295 @@ public class SlackApp {
         }
     }
 
-    private final static Gson GSON = new Gson();
-    private final static OkHttpClient REST_CLIENT;
-    private final static String USER;
+    private final static int HOME_PAGE_SIZE = 5;
+    private final static int HOME_MAX_PAGES = Math.max(1, Math.min(AppSettings.getInt("SWARM_HOME_MAX_PAGES", 4),
+            SwarmViews.MAX_HOME_REVIEWS / HOME_PAGE_SIZE));
+    private final static int SEARCH_PAGE_SIZE = 10;
+    private final static String SEARCH_SUBCOMMAND = "search";
+    private final static RenderedViewCache VIEW_CACHE = new RenderedViewCache(
+            AppSettings.getInt("RENDERED_VIEW_CACHE_MAX_SIZE", 10000));
+    private final static ViewPublisher VIEW_PUBLISHER = new ViewPublisher(VIEW_CACHE,
+            AppSettings.getLong("SLACK_VIEW_DEBOUNCE_MS", 500),
+            AppSettings.getInt("SLACK_VIEWS_PER_MINUTE", 100),
+            AppSettings.getInt("SLACK_VIEWS_BURST", 20),
+            AppSettings.getInt("SLACK_VIEW_PUBLISHER_MAX_PENDING", 10000),
+            AppSettings.getInt("SLACK_VIEWS_INTERACTIVE_RESERVE", 5),
+            AppSettings.getInt("SLACK_VIEW_PUBLISHER_THREADS", 2));
+    private final static Map<String, REVIEW_TYPE> HOME_REVIEW_TYPES = new ConcurrentHashMap<>();
+    private final static Map<String, HomePage> HOME_PAGES = new ConcurrentHashMap<>();
+    private final static boolean VIRTUAL_THREADS = useVirtualThreads();
+    private final static boolean FAST_STARTUP = AppSettings.getBoolean("SWARM_FAST_STARTUP", false);
+    private final static ExecutorService HOME_PREFETCH_EXECUTOR = newExecutor("swarm-home-prefetch",
+            AppSettings.getInt("SWARM_HOME_PREFETCH_THREADS", 4));
+    private final static ExecutorService DETAILS_EXECUTOR = newExecutor("swarm-details",
+            AppSettings.getInt("SWARM_DETAILS_THREADS", 4));
+    private final static ReviewStore REVIEW_STORE = new ReviewStore();
+    private final static Path SNAPSHOT_PATH;
+    private final static String WEBHOOK_TOKEN = AppSettings.getString("SWARM_WEBHOOK_TOKEN", null);
+    private final static AsyncCommandExecutor COMMAND_EXECUTOR;
+    private final static int SWARM_WRITE_CONCURRENCY = AppSettings.getInt("SWARM_WRITE_CONCURRENCY", 4);
+    private final static ExecutorService CACHE_REFRESH_EXECUTOR = newExecutor("swarm-cache-refresh",
+            AppSettings.getInt("SWARM_CACHE_REFRESH_THREADS", 2));
+    private final static TtlLruCache<String, Review> REVIEW_CACHE = new TtlLruCache<>("swarm_review",
+            AppSettings.getInt("SWARM_CACHE_REVIEW_MAX_SIZE", 1000),
+            AppSettings.getLong("SWARM_CACHE_REVIEW_TTL_SECONDS", 30),
+            AppSettings.getLong("SWARM_CACHE_REVIEW_STALE_SECONDS", 300),
+            TimeUnit.SECONDS, CACHE_REFRESH_EXECUTOR);
+    private final static TtlLruCache<String, User> USER_CACHE = new TtlLruCache<>("swarm_user",
+            AppSettings.getInt("SWARM_CACHE_USER_MAX_SIZE", 1000),
+            AppSettings.getLong("SWARM_CACHE_USER_TTL_SECONDS", 600),
+            AppSettings.getLong("SWARM_CACHE_USER_STALE_SECONDS", 3600),
+            TimeUnit.SECONDS, CACHE_REFRESH_EXECUTOR);
+    private final static TtlLruCache<String, ReviewsData> CHANGE_LIST_CACHE = new TtlLruCache<>("swarm_review_list",
+            AppSettings.getInt("SWARM_CACHE_LIST_MAX_SIZE", 200),
+            AppSettings.getLong("SWARM_CACHE_LIST_TTL_SECONDS", 30),
+            AppSettings.getLong("SWARM_CACHE_LIST_STALE_SECONDS", 300),
+            TimeUnit.SECONDS, CACHE_REFRESH_EXECUTOR);
 
     static {
-        Properties props = new Properties();
-        String rootDir = System.getProperty("user.home");
-        try (FileInputStream fis = new FileInputStream(rootDir + "/blt/config.blt")) {
-            props.load(fis);
-        } catch (IOException exc) {
-            log.error("Could not load properties from config file");
-            props.put("p4.user", "fake_user");
-            props.put("p4.password", "fake_password");
+        Metrics.gauge("review_index_terms", REVIEW_STORE::getIndexedTermCount);
+        String snapshotPath = AppSettings.getString("SWARM_SNAPSHOT_PATH", null);
+        SNAPSHOT_PATH = StringUtils.isNotBlank(snapshotPath) ? Paths.get(snapshotPath) : null;
+        if (VIRTUAL_THREADS) {
+            COMMAND_EXECUTOR = AsyncCommandExecutor.virtualThreads("swarm_command",
+                    AppSettings.getInt("SWARM_VIRTUAL_MAX_RUNNING", 1000));
+        } else if (AppSettings.getBoolean("SWARM_ASYNC_COMMANDS", false)) {
+            COMMAND_EXECUTOR = new AsyncCommandExecutor("swarm_command",
+                    AppSettings.getInt("SWARM_ASYNC_THREADS", 8),
+                    AppSettings.getInt("SWARM_ASYNC_QUEUE_SIZE", 100));
+        } else {
+            COMMAND_EXECUTOR = null;
+        }
+    }
+
+    /**
+     * The Swarm credentials from {@code ~/blt/config.blt} and everything built from them. Initialized on first
+     * use rather than with {@code SlackApp}, so loading the app reads no file; in fast-startup mode that first use
+     * is the background warm-up, while the Slack connection comes up.
+     */
+    private static final class Swarm {
+
+        static final String USER;
+        static final SwarmClient CLIENT;
+        static final ReviewStateWriter REVIEW_WRITER;
+        static final UserBatcher USER_BATCHER;
+        static final SwarmUserResolver USER_RESOLVER;
+        static final ReviewSyncEngine SYNC_ENGINE;
+        static final ReviewEventPipeline EVENT_PIPELINE;
+
+        static {
+            Properties props = new Properties();
+            String rootDir = System.getProperty("user.home");
+            try (FileInputStream fis = new FileInputStream(rootDir + "/blt/config.blt")) {
+                props.load(fis);
+            } catch (IOException exc) {
+                log.error("Could not load properties from config file");
+                props.put("p4.user", "fake_user");
+                props.put("p4.password", "fake_password");
+            }
+            USER = props.getProperty("p4.user");
+            CLIENT = new SwarmClient(AppSettings.getString("SWARM_BASE_URL", SwarmClient.DEFAULT_BASE_URL),
+                    props.getProperty("p4.user"), props.getProperty("p4.password"),
+                    ResilienceSettings.builder()
+                            .connectTimeoutMillis(AppSettings.getLong("SWARM_CONNECT_TIMEOUT_MS", 1000))
+                            .interactiveTimeoutMillis(AppSettings.getLong("SWARM_INTERACTIVE_TIMEOUT_MS", 2000))
+                            .backgroundTimeoutMillis(AppSettings.getLong("SWARM_BACKGROUND_TIMEOUT_MS", 10000))
+                            .maxConcurrentCalls(AppSettings.getInt("SWARM_MAX_CONCURRENT_CALLS", 16))
+                            .bulkheadWaitMillis(AppSettings.getLong("SWARM_BULKHEAD_WAIT_MS", 50))
+                            .circuitFailureThreshold(AppSettings.getInt("SWARM_CIRCUIT_FAILURE_THRESHOLD", 5))
+                            .circuitOpenMillis(AppSettings.getLong("SWARM_CIRCUIT_OPEN_MS", 30000))
+                            .maxAttempts(AppSettings.getInt("SWARM_MAX_ATTEMPTS", 3))
+                            .retryBudgetRatio(AppSettings.getInt("SWARM_RETRY_BUDGET_PERCENT", 20) / 100.0)
+                            .build());
+            REVIEW_WRITER = new ReviewStateWriter(CLIENT, newExecutor("swarm-write", SWARM_WRITE_CONCURRENCY),
+                    SWARM_WRITE_CONCURRENCY);
+            USER_BATCHER = new UserBatcher(CLIENT,
+                    AppSettings.getLong("SWARM_USER_BATCH_WINDOW_MS", 10),
+                    AppSettings.getInt("SWARM_USER_BATCH_MAX_SIZE", 50),
+                    newExecutor("swarm-user-batch", AppSettings.getInt("SWARM_USER_BATCH_THREADS", 4)));
+            USER_RESOLVER = AppSettings.getBoolean("SWARM_USER_MAPPING_ENABLED", true)
+                    ? new SwarmUserResolver(USER_BATCHER, new TtlLruCache<>("slack_swarm_user",
+                            AppSettings.getInt("SWARM_USER_MAPPING_MAX_SIZE", 10000),
+                            AppSettings.getLong("SWARM_USER_MAPPING_TTL_SECONDS", 86400),
+                            AppSettings.getLong("SWARM_USER_MAPPING_STALE_SECONDS", 3600),
+                            TimeUnit.SECONDS, CACHE_REFRESH_EXECUTOR))
+                    : null;
+            SYNC_ENGINE = AppSettings.getBoolean("SWARM_SYNC_ENABLED", true)
+                    ? new ReviewSyncEngine(CLIENT, REVIEW_STORE,
+                            AppSettings.getInt("SWARM_SYNC_PAGE_SIZE", 50),
+                            AppSettings.getInt("SWARM_SYNC_MAX_PAGES", 20),
+                            AppSettings.getLong("SWARM_SYNC_POLL_SECONDS", 30),
+                            AppSettings.getLong("SWARM_SYNC_MAX_BACKOFF_SECONDS", 600),
+                            AppSettings.getLong("SWARM_SYNC_FULL_RESYNC_SECONDS", 1800),
+                            TimeUnit.SECONDS)
+                    : null;
+            EVENT_PIPELINE = SYNC_ENGINE != null && StringUtils.isNotBlank(WEBHOOK_TOKEN)
+                    ? new ReviewEventPipeline(CLIENT, REVIEW_STORE,
+                            AppSettings.getInt("SWARM_WEBHOOK_QUEUE_SIZE", 1000),
+                            AppSettings.getInt("SWARM_WEBHOOK_WORKERS", 2))
+                    : null;
+        }
+    }
+
+    private static boolean useVirtualThreads() {
+        if (!AppSettings.getBoolean("SWARM_VIRTUAL_THREADS", false)) return false;
+        if (!VirtualThreads.isAvailable()) {
+            log.error("SWARM_VIRTUAL_THREADS needs JDK 21 or newer, running on {}; using platform threads",
+                    System.getProperty("java.version"));
+            return false;
         }
-        USER = props.getProperty("p4.user");
-        REST_CLIENT = createAuthenticatedClient(props.getProperty("p4.user"), props.getProperty("p4.password"));
+        log.info("Running Slack requests and Swarm calls on virtual threads");
+        return true;
+    }
+
+    private static ExecutorService newExecutor(String name, int platformThreads) {
+        return VIRTUAL_THREADS
+                ? VirtualThreads.newThreadPerTaskExecutor(name + "-")
+                : Executors.newFixedThreadPool(platformThreads,
+                        new BasicThreadFactory.Builder().namingPattern(name + "-%d").daemon(true).build());
     }
 
     public static void main(String[] args) throws Exception {
         App app = new App();
+        Metrics.startLogReporter(AppSettings.getLong("METRICS_LOG_INTERVAL_SECONDS", 60));
+        if (AppSettings.getBoolean("SWARM_CDS_TRAINING", false)) {
+            trainClassDataSharing(app);
+            return;
+        }
+        prepare(app);
+        launchHttpServer(app);
+        log.info("Starting Slack App in socket mode...");
+        new SocketModeApp(app).start();
+    }
+
+    /**
+     * Registers the handlers and starts the review sync. In fast-startup mode the sync starts, and the Swarm HTTP
+     * client and JSON adapters are built, in the background while the transports connect, so the first request
+     * does not wait for all of it.
+     */
+    static void prepare(App app) {
+        if (FAST_STARTUP) {
+            runInBackground("swarm-warm-up", () -> {
+                Swarm.CLIENT.warmUp();
+                SwarmJson.warmUp();
+            });
+            runInBackground("swarm-sync-start", SlackApp::startSync);
+        } else {
+            startSync();
+        }
+        registerHandlers(app);
+    }
 
+    /**
+     * Starts the HTTP server for metrics and Swarm webhooks, in fast-startup mode in the background.
+     */
+    static void launchHttpServer(App app) {
+        if (FAST_STARTUP) {
+            runInBackground("grizzly-start", () -> startHttpServer(app));
+        } else {
+            startHttpServer(app);
+        }
+    }
+
+    private static void runInBackground(String name, Runnable task) {
+        Thread thread = new Thread(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("{} failed", name, e);
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void startHttpServer(App app) {
+        String herokuPort = System.getenv("PORT");
+        if (!NumberUtils.isDigits(herokuPort)) {
+            log.error("Could not determine port for Grizzly Http Server");
+            return;
+        }
+        int port = Integer.parseInt(herokuPort);
+        HttpServer server = HttpServer.createSimpleServer(".", port);
+        server.getServerConfiguration().addHttpHandler(new MetricsHttpHandler(), "/metrics");
+        if (Swarm.EVENT_PIPELINE != null) {
+            server.getServerConfiguration().addHttpHandler(
+                    new SwarmWebhookHandler(Swarm.EVENT_PIPELINE, WEBHOOK_TOKEN), "/swarm/webhook");
+            Swarm.EVENT_PIPELINE.start(swarmUsers -> pushHomeViews(app.client(), swarmUsers));
+        }
+        try {
+            server.start();
+            log.info("Started Grizzly Http Server on port: {}", port);
+        } catch (IOException e) {
+            log.error("Could not start Grizzly Http Server on port {}", port, e);
+        }
+    }
+
+    /**
+     * Loads the classes a running app needs, without connecting to Slack or Swarm, and exits; run with
+     * {@code -XX:DumpLoadedClassList} by the {@code cds} build profile to list the classes of the AppCDS archive.
+     */
+    private static void trainClassDataSharing(App app) {
+        registerHandlers(app);
+        Swarm.CLIENT.warmUp();
+        SwarmJson.warmUp();
+        ReviewsData reviewsData = SwarmJson.GSON.fromJson("{\"reviews\":[{\"id\":1,\"author\":\"cds\","
+                + "\"description\":\"training\",\"state\":\"needsReview\",\"created\":0,\"participants\":"
+                + "{\"cds\":[]}}],\"lastSeen\":1,\"totalCount\":1}", ReviewsData.class);
+        VIEW_CACHE.render("cds", AUTHOR.name(), reviewsData,
+                () -> buildHomeView(Swarm.CLIENT.getReviewUrl(), AUTHOR, reviewsData));
+        buildModalView(reviewsData.getReviews().get(0));
+        HttpServer.createSimpleServer(".", 0).getServerConfiguration()
+                .addHttpHandler(new MetricsHttpHandler(), "/metrics");
+        log.info("Loaded the classes of the app for class data sharing");
+        System.exit(0);
+    }
+
+    static void startSync() {
+        if (Swarm.SYNC_ENGINE != null) {
+            if (SNAPSHOT_PATH != null) restoreSnapshot();
+            if (Swarm.USER_RESOLVER == null) Swarm.SYNC_ENGINE.track(Swarm.USER);
+            Swarm.SYNC_ENGINE.start();
+            if (SNAPSHOT_PATH != null) scheduleSnapshots();
+        }
+    }
+
+    /**
+     * Serves the reviews and user matches saved before the last restart until the first sync has revalidated them.
+     */
+    private static void restoreSnapshot() {
+        ReviewSnapshot snapshot = ReviewSnapshot.open(SNAPSHOT_PATH);
+        if (snapshot == null) return;
+
+        REVIEW_STORE.restore(snapshot);
+        runInBackground("swarm-snapshot-index", REVIEW_STORE::indexSnapshot);
+        REVIEW_STORE.getUsers().forEach(Swarm.SYNC_ENGINE::track);
+        if (Swarm.USER_RESOLVER != null) Swarm.USER_RESOLVER.restore(snapshot.getUserMatches());
+    }
+
+    private static void scheduleSnapshots() {
+        long interval = AppSettings.getLong("SWARM_SNAPSHOT_INTERVAL_SECONDS", 300);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+                new BasicThreadFactory.Builder().namingPattern("swarm-snapshot").daemon(true).build());
+        scheduler.scheduleWithFixedDelay(SlackApp::writeSnapshot, interval, interval, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(SlackApp::writeSnapshot, "swarm-snapshot-shutdown"));
+    }
+
+    private static synchronized void writeSnapshot() {
+        // until the first sync succeeds the store holds nothing newer than the snapshot it was restored from
+        if (REVIEW_STORE.hasSnapshot()) return;
+        try {
+            ReviewSnapshot.write(SNAPSHOT_PATH, REVIEW_STORE,
+                    Swarm.USER_RESOLVER != null ? Swarm.USER_RESOLVER.getMatches() : Collections.emptyMap());
+        } catch (IOException e) {
+            log.warn("Could not write review snapshot {}", SNAPSHOT_PATH, e);
+        }
+    }
+
+    /**
+     * Registers the slash command, block action and event handlers of the app, whatever transport feeds it.
+     */
+    static void registerHandlers(App app) {
         app.endpoint(WebEndpoint.Method.POST, "/events", (req, ctx) -> ctx.ackWithJson(req.getRequestBodyAsString()));
 
         app.command(Pattern.compile("/.*"), (req, ctx) -> {
@@ -150,325 +428,592 @@ public class SlackApp {
             String channel = payload.getChannelName();
             log.info("received {} command from user '{}' on channel '{}'", command, user, channel);
             APP_COMMAND appCommand = APP_COMMAND.lookupCommand(command);
-            switch (appCommand) {
-                case HELLO:
-                    return ctx.ack(":wave: Hello " + user + "!");
-                case USER:
-                    return findUser(req, ctx);
-                case CHANGELIST:
-                    return findCodeReview(req, ctx);
-                case UNKNOWN:
-                default:
-                    return ctx.ack(":warning: Command not supported!");
-            }
+            return instrumented(appCommand.getCommand(), () -> {
+                switch (appCommand) {
+                    case HELLO:
+                        return ctx.ack(":wave: Hello " + user + "!");
+                    case USER:
+                        return findUser(req, ctx);
+                    case CHANGELIST:
+                        return findCodeReview(req, ctx);
+                    case UNKNOWN:
+                    default:
+                        return ctx.ack(":warning: Command not supported!");
+                }
+            });
         });
 
         Pattern pattern = Pattern.compile("details_[0-9]+");
-        app.blockAction(pattern, (req, ctx) -> {
+        app.blockAction(pattern, (req, ctx) -> instrumented("details", () -> {
+            long start = System.nanoTime();
             String actionId = req.getPayload().getActions().get(0).getActionId();
             String reviewId = actionId.substring(actionId.indexOf('_') + 1);
-            Review review = getReview(reviewId);
-            ViewsOpenResponse viewsOpenRes = ctx.client().viewsOpen(r -> r
+            // trigger_id expires after 3 seconds, so the modal is opened right here rather than behind queued
+            // commands; a review the app does not hold yet is opened with what the clicked view shows, and filled in
+            // once Swarm has answered
+            Review known = getKnownReview(reviewId);
+            CompletableFuture<Review> details = known == null ? fetchReviewAsync(reviewId) : null;
+            View modal = known != null
+                    ? buildModalView(known)
+                    : buildLoadingModalView(reviewId, findReviewSummary(req.getPayload().getView(), reviewId));
+            ViewsOpenResponse viewsOpenRes = timedSlackCall("views.open", () -> ctx.client().viewsOpen(r -> r
                     .triggerId(ctx.getTriggerId())
-                    .view(buildModalView(review)));
+                    .view(modal)));
+            if (!viewsOpenRes.isOk()) return errorResponse(viewsOpenRes.getError());
+
+            Metrics.timer(Metrics.withLabel("details_modal_duration", "stage", "open")).recordSince(start);
+            if (details == null) {
+                Metrics.timer(Metrics.withLabel("details_modal_duration", "stage", "complete")).recordSince(start);
+            } else {
+                details.whenCompleteAsync((review, failure) ->
+                        fillInDetails(ctx.client(), viewsOpenRes.getView(), reviewId, review, failure, start),
+                        DETAILS_EXECUTOR);
+            }
+            return ctx.ack();
+        }));
 
-            return viewsOpenRes.isOk()
-                    ? ctx.ack()
-                    : Response.builder().statusCode(500).body(viewsOpenRes.getError()).build();
-        });
+        Pattern stateChange = Pattern.compile("(approve|decline)_([0-9]+|selected)");
+        app.blockAction(stateChange, (req, ctx) -> instrumented("change_state", () -> {
+            String actionId = req.getPayload().getActions().get(0).getActionId();
+            ReviewState state = actionId.startsWith("approve") ? ReviewState.APPROVED : ReviewState.REJECTED;
+            String target = actionId.substring(actionId.indexOf('_') + 1);
+            View view = req.getPayload().getView();
+            List<String> reviewIds = "selected".equals(target)
+                    ? getSelectedReviews(view)
+                    : Collections.singletonList(target);
+            if (reviewIds.isEmpty()) return ctx.ack();
+
+            String slackUser = req.getPayload().getUser().getId();
+            // Swarm is written to after the ack, and the Home tab or message is updated once all changes are done
+            DETAILS_EXECUTOR.execute(() -> {
+                String swarmUser;
+                try {
+                    swarmUser = Swarm.USER_RESOLVER != null
+                            ? Swarm.USER_RESOLVER.resolve(ctx.client(), slackUser) : null;
+                } catch (IOException e) {
+                    log.warn("Could not resolve the Swarm user of {}", slackUser, e);
+                    showStateChangeOutcome(ctx, slackUser, view, swarmErrorMessage(e));
+                    return;
+                }
+                if (swarmUser == null) {
+                    showStateChangeOutcome(ctx, slackUser, view, Swarm.USER_RESOLVER != null
+                            ? ":warning: Only reviewers with a Swarm account matching their Slack email can approve "
+                            + "or decline reviews"
+                            : ":warning: Approving and declining needs SWARM_USER_MAPPING_ENABLED");
+                    return;
+                }
+                Swarm.REVIEW_WRITER.changeAll(reviewIds, state, slackUser, swarmUser).thenAccept(outcome -> {
+                    onStateChanged(outcome);
+                    showStateChangeOutcome(ctx, slackUser, view, describeStateChange(state, outcome, swarmUser));
+                });
+            });
+            return ctx.ack();
+        }));
+
+        // picking reviews only takes effect with "Approve selected" or "Decline selected"
+        app.blockAction(BULK_SELECT_ACTION_ID, (req, ctx) -> ctx.ack());
 
-        app.blockAction("change_review_type", (req, ctx) -> {
+        app.blockAction("change_review_type", (req, ctx) -> instrumented("change_review_type", () -> {
             String selectedOption = req.getPayload().getActions().get(0).getSelectedOption().getValue();
             REVIEW_TYPE reviewType = REVIEW_TYPE.valueOf(selectedOption);
+            String slackUser = req.getPayload().getUser().getId();
+            HOME_REVIEW_TYPES.put(slackUser, reviewType);
+            HOME_PAGES.remove(slackUser);
+
+            return ackAndRunLater("change_review_type", ctx.ack(), () -> {
+                RenderedView view;
+                try {
+                    view = loadHomeView(ctx.client(), slackUser, reviewType, HomePage.FIRST);
+                } catch (IOException e) {
+                    return errorResponse("Error retrieving reviews");
+                }
+                VIEW_PUBLISHER.update(ctx.client(), slackUser, req.getPayload().getView().getId(), view);
+                return ctx.ack();
+            });
+        }));
+
+        app.blockAction(Pattern.compile("home_page_(more|newest)"), (req, ctx) -> instrumented("home_page", () -> {
+            HomePage page = HomePage.fromValue(req.getPayload().getActions().get(0).getValue(),
+                    HOME_MAX_PAGES);
+            String slackUser = req.getPayload().getUser().getId();
+            HOME_PAGES.put(slackUser, page);
+
+            return ackAndRunLater("home_page", ctx.ack(), () -> {
+                RenderedView view;
+                try {
+                    view = loadHomeView(ctx.client(), slackUser, HOME_REVIEW_TYPES.getOrDefault(slackUser, AUTHOR), page);
+                } catch (IOException e) {
+                    return errorResponse("Error retrieving reviews");
+                }
+                VIEW_PUBLISHER.update(ctx.client(), slackUser, req.getPayload().getView().getId(), view);
+                return ctx.ack();
+            });
+        }));
 
-            ReviewsData reviewsData;
-            try {
-                reviewsData = getChangeList(reviewType);
-            } catch (IOException e) {
-                return errorResponse("Error retrieving reviews");
-            }
-
-            ViewsUpdateResponse viewsUpdateResponse = ctx.client().viewsUpdate(r ->
-                    r.viewId(req.getPayload().getView().getId())
-                            .view(buildHomeView(reviewType, reviewsData)));
-
-            return viewsUpdateResponse.isOk()
-                    ? ctx.ack()
-                    : errorResponse(viewsUpdateResponse.getError());
-        });
-
-        app.event(AppHomeOpenedEvent.class, (payload, ctx) -> {
+        app.event(AppHomeOpenedEvent.class, (payload, ctx) -> instrumented("app_home_opened", () -> {
             if (!HOME.getName().equals(payload.getEvent().getTab())) {
                 return ctx.ack();
             }
-            ReviewsData reviewsData;
-            try {
-                reviewsData = getChangeList(AUTHOR);
-            } catch (IOException e) {
-                return errorResponse("Error retrieving reviews");
+            String slackUser = payload.getEvent().getUser();
+            // coming back to Home starts over with the newest reviews
+            HOME_PAGES.remove(slackUser);
+            return ackAndRunLater("app_home_opened", ctx.ack(), () -> {
+                RenderedView view;
+                try {
+                    view = loadHomeView(ctx.client(), slackUser, HOME_REVIEW_TYPES.getOrDefault(slackUser, AUTHOR),
+                            HomePage.FIRST);
+                } catch (IOException e) {
+                    return errorResponse("Error retrieving reviews");
+                }
+                // a user opening Home for the first time (no view yet) always gets one published
+                VIEW_PUBLISHER.publish(ctx.client(), slackUser, view, payload.getEvent().getView() == null,
+                        ViewPublisher.Priority.INTERACTIVE);
+                return ctx.ack();
+            });
+        }));
+    }
+
+    @FunctionalInterface
+    private interface HandlerCall<T> {
+        T call() throws IOException, SlackApiException;
+    }
+
+    /**
+     * Records latency, outcome and in-flight count of a Bolt handler, so slow handlers can be told apart from
+     * slow Swarm ({@code swarm_http_*}) or Slack ({@code slack_api_*}) calls.
+     */
+    private static Response instrumented(String handler, HandlerCall<Response> call) throws IOException, SlackApiException {
+        Metrics.UpDownCounter inFlight = Metrics.upDownCounter(Metrics.withLabel("slack_handler_in_flight", "handler", handler));
+        long start = System.nanoTime();
+        String outcome = "error";
+        inFlight.inc();
+        try {
+            Response response = call.call();
+            if (response != null && (response.getStatusCode() == null || response.getStatusCode() < 400)) {
+                outcome = "ok";
             }
-            if (payload.getEvent().getView() == null) {
-                View view = buildHomeView(AUTHOR, reviewsData);
-                ViewsPublishResponse viewsPublishRes = ctx.client().viewsPublish(r -> r
-                        .userId(payload.getEvent().getUser())
-                        .view(view)
-                );
-                return viewsPublishRes.isOk()
-                        ? ctx.ack()
-                        : errorResponse(viewsPublishRes.getError());
+            return response;
+        } finally {
+            inFlight.dec();
+            Metrics.timer(Metrics.withLabel("slack_handler_duration", "handler", handler)).recordSince(start);
+            Metrics.counter(Metrics.withLabel(Metrics.withLabel("slack_handler_requests_total", "handler", handler),
+                    "outcome", outcome)).inc();
+        }
+    }
+
+    /**
+     * In async mode, acks a block action or event right away and does its work on the command executor; the work
+     * ends with a Slack Web API call, so nothing is lost by acking first. Without an executor, or when it is
+     * saturated, the work is done before acking as usual.
+     */
+    private static Response ackAndRunLater(String handler, Response ack, HandlerCall<Response> work)
+            throws IOException, SlackApiException {
+        if (COMMAND_EXECUTOR == null) return work.call();
+
+        boolean accepted = COMMAND_EXECUTOR.submit(System.nanoTime(), () -> {
+            Response response = work.call();
+            if (response.getStatusCode() != null && response.getStatusCode() >= 400) {
+                log.warn("{} failed after ack: {}", handler, response.getBody());
             }
-            return ctx.ack();
-        });
+        }, e -> log.warn("{} failed after ack", handler));
+        return accepted ? ack : work.call();
+    }
 
-        String herokuPort = System.getenv("PORT");
-        if (NumberUtils.isDigits(herokuPort)) {
-            int port = Integer.parseInt(herokuPort);
-            HttpServer.createSimpleServer(".", port).start();
-            log.info("Started Grizzly Http Server on port: {}", port);
-        } else {
-            log.error("Could not determine port for Grizzly Http Server");
+    private static <T> T timedSlackCall(String method, HandlerCall<T> call) throws IOException, SlackApiException {
+        long start = System.nanoTime();
+        try {
+            return call.call();
+        } finally {
+            Metrics.timer(Metrics.withLabel("slack_api_duration", "method", method)).recordSince(start);
         }
-        log.info("Starting Slack App in socket mode...");
-        new SocketModeApp(app).start();
     }
 
-    private static Response findCodeReview(SlashCommandRequest req, SlashCommandContext ctx) throws IOException {
+    private static Response findCodeReview(SlashCommandRequest req, SlashCommandContext ctx) {
         String param = req.getPayload().getText();
         if (StringUtils.isBlank(param)) {
             return ctx.ack(":exclamation: Please provide change list number you want to review");
         }
-        Review review = getReview(param);
+        String[] words = StringUtils.split(param, null, 2);
+        if (SEARCH_SUBCOMMAND.equalsIgnoreCase(words[0])) {
+            return searchReviews(ctx, words.length > 1 ? words[1].trim() : "");
+        }
+        if (COMMAND_EXECUTOR != null) {
+            return ackAndRespondLater(ctx, ":mag: Looking up review " + param + "...", () -> {
+                Review review = getReview(param);
+                if (review != null) {
+                    ctx.respond(asBlocks(buildCompactLayoutForReview(Swarm.CLIENT.getReviewUrl(), review)));
+                } else {
+                    ctx.respond(":warning: Review Not Found!");
+                }
+            });
+        }
+        Review review;
+        try {
+            review = getReview(param);
+        } catch (IOException e) {
+            log.warn("Could not get review {}", param, e);
+            return ctx.ack(swarmErrorMessage(e));
+        }
         return review != null
-                ? ctx.ack(asBlocks(buildCompactLayoutForReview(review, new ArrayList<>())))
+                ? ctx.ack(asBlocks(buildCompactLayoutForReview(Swarm.CLIENT.getReviewUrl(), review)))
                 : ctx.ack(":warning: Review Not Found!");
     }
 
-    private static Response findUser(SlashCommandRequest req, SlashCommandContext ctx) throws IOException {
+    /**
+     * Answers {@code /changelist search <terms>} from the review index, without calling Swarm; only the reviews
+     * synced for users of the app are found.
+     */
+    private static Response searchReviews(SlashCommandContext ctx, String query) {
+        if (Swarm.SYNC_ENGINE == null) {
+            return ctx.ack(":warning: Search needs review sync to be enabled");
+        }
+        if (query.isEmpty()) {
+            return ctx.ack(":exclamation: Please provide words to search for, e.g. `/changelist search deploy* "
+                    + "state:needsReview author:jdoe`");
+        }
+        long start = System.nanoTime();
+        ReviewsData results = REVIEW_STORE.search(query, SEARCH_PAGE_SIZE);
+        Metrics.timer("review_search_duration").recordSince(start);
+        return ctx.ack(buildSearchResults(Swarm.CLIENT.getReviewUrl(), query, results));
+    }
+
+    private static Response findUser(SlashCommandRequest req, SlashCommandContext ctx) {
         String param = req.getPayload().getText();
         if (StringUtils.isBlank(param)) {
             return ctx.ack(":exclamation: Please type username");
         }
-        User user = getUser(param);
-        return user != null
-                ? ctx.ack(asBlocks(buildLayoutForUser(user)))
+        List<String> usernames = Arrays.asList(StringUtils.split(param, " ,\t"));
+        if (COMMAND_EXECUTOR != null) {
+            return ackAndRespondLater(ctx, ":mag: Looking up " + String.join(", ", usernames) + "...", () -> {
+                List<LayoutBlock> blocks = buildLayoutForUsers(usernames);
+                if (!blocks.isEmpty()) {
+                    ctx.respond(blocks);
+                } else {
+                    ctx.respond(":warning: User Not Found!");
+                }
+            });
+        }
+        List<LayoutBlock> blocks;
+        try {
+            blocks = buildLayoutForUsers(usernames);
+        } catch (IOException e) {
+            log.warn("Could not get users {}", usernames, e);
+            return ctx.ack(swarmErrorMessage(e));
+        }
+        return !blocks.isEmpty()
+                ? ctx.ack(blocks)
                 : ctx.ack(":warning: User Not Found!");
     }
 
-    private static Response errorResponse(String error) {
-        return Response.builder().statusCode(500).body(error).build();
+    private static Response ackAndRespondLater(SlashCommandContext ctx, String placeholder, AsyncCommandExecutor.Job job) {
+        boolean accepted = COMMAND_EXECUTOR.submit(System.nanoTime(), job,
+                e -> ctx.respond(swarmErrorMessage(e)));
+        return accepted
+                ? ctx.ack(placeholder)
+                : ctx.ack(":warning: Swarm is busy, please try again in a moment");
     }
 
-    private static View buildHomeView(REVIEW_TYPE reviewType, ReviewsData reviewsData) {
-        List<LayoutBlock> blocks = new ArrayList<>();
-        addReviewTypesToBlocks(reviewType, blocks);
-        addReviewsToBlocks(reviewsData, blocks);
-        blocks.add(divider());
-
-        return view(view -> view
-                .type("home")
-                .blocks(asBlocks(blocks.toArray(LayoutBlock[]::new)))
-        );
-    }
-
-    private static View buildModalView(Review review) {
-        return view(view -> view
-                .callbackId("pullrequest-details")
-                .type("modal")
-                .notifyOnClose(false)
-                .title(viewTitle(title -> title.type("plain_text").text("Review Details").emoji(true)))
-                .blocks(asBlocks(buildLayoutForReview(review)))
-        );
-    }
-
-    private static void addReviewTypesToBlocks(REVIEW_TYPE reviewType, List<LayoutBlock> blocks) {
-        List<OptionObject> options = new ArrayList<>(2);
-        OptionObject option1 = OptionObject.builder()
-                .value(AUTHOR.name())
-                .text(new PlainTextObject(AUTHOR.getDescription(), false))
-                .build();
-        OptionObject option2 = OptionObject.builder()
-                .value(PARTICIPANT.name())
-                .text(new PlainTextObject(PARTICIPANT.getDescription(), false))
-                .build();
-        options.add(option1);
-        options.add(option2);
-        OptionObject initialOption;
-        switch (reviewType) {
-            case AUTHOR:
-                initialOption = option1;
-                break;
-            case PARTICIPANT:
-                initialOption = option2;
-                break;
-            default:
-                initialOption = null;
-        }
-        blocks.add(section(section -> section
-                        .text(markdownText(mt -> mt.text("*Review request type:*")))
-                        .accessory(staticSelect(staticSelect -> staticSelect
-                                .actionId("change_review_type").options(options).initialOption(initialOption)))
-                )
-        );
-    }
-
-    private static void addReviewsToBlocks(ReviewsData reviewsData, List<LayoutBlock> blocks) {
-        if (reviewsData == null || CollectionUtils.isEmpty(reviewsData.getReviews())) return;
-
-        String lastSeen = reviewsData.getLastSeen() != null ? reviewsData.getLastSeen().toString() : "Unknown";
-        int total = reviewsData.getTotalCount() != null ? reviewsData.getTotalCount() : 0;
-        blocks.add(section(section -> section.text(markdownText(mt -> mt.text("*Review requests*")))));
-        reviewsData.getReviews().forEach(review -> buildCompactLayoutForReview(review, blocks));
-        blocks.add(divider());
-        blocks.add(section(section -> section.text(
-                markdownText(mt -> mt.text("Last seen: " + lastSeen + "\tTotal reviews: " + total))))
-        );
-    }
-
-    private static LayoutBlock[] buildCompactLayoutForReview(Review review, List<LayoutBlock> blocks) {
-        if (review == null) return new LayoutBlock[0];
-
-        String ln = System.lineSeparator();
-        blocks.add(divider());
-        String sb = "*Change List:* " + "<" + REVIEW_URL + review.getId() + "| :link: " + review.getId() + ">" +
-                ln + "*Description:* " + review.getDescription() +
-                ln + "*Status:* " + review.getStateLabel();
-        blocks.add(section(section -> section
-                        .text(markdownText(mt -> mt.text(sb)))
-                        .accessory(imageElement(image -> image
-                                .imageUrl("https://swarm.workshop.perforce.com/view/guest/perforce_software/slack/main/images/60x60-Helix-Bee.png")
-                                .altText("Helix Swarm Bee")))
-                )
-        );
-        LocalDate date = Instant.ofEpochMilli(review.getCreated()).atZone(ZoneId.systemDefault()).toLocalDate();
-        blocks.add(context(context -> context
-                .elements(asContextElements(
-                        imageElement(image ->
-                                image.imageUrl("https://api.slack.com/img/blocks/bkb_template_images/task-icon.png")
-                                        .altText("Changelist")
-                        ),
-                        markdownText("Submitted by: *" + review.getAuthor() + "* on " + date.format(ISO_DATE))
-                ))));
-
-        List<BlockElement> actionsList = new ArrayList<>();
-        actionsList.add(button(b -> b.text(plainText(pt -> pt
-                .text("View Details")))
-                .value("details_" + review.getId())
-                .actionId("details_" + review.getId())));
-
-        if (review.getState().startsWith("needs")) {
-            actionsList.add(button(b -> b
-                    .text(plainText(pt -> pt.text("Approve")))
-                    .style("primary").value("approve_" + review.getId())
-                    .actionId("approve_" + review.getId())));
-
-            actionsList.add(button(b -> b
-                    .text(plainText(pt -> pt.text("Decline")))
-                    .style("danger").value("decline_" + review.getId())
-                    .actionId("decline_" + review.getId())));
-        }
-        blocks.add(actions(actions -> actions.elements(asElements(actionsList.toArray(BlockElement[]::new)))));
-        return blocks.toArray(LayoutBlock[]::new);
-    }
-
-    private static LayoutBlock[] buildLayoutForUser(User user) {
-        if (user == null) return new LayoutBlock[0];
-
-        String ln = System.lineSeparator();
-        String text = "*Username:* " + user.getUsername()
-                + ln + "*Email:* " + user.getEmail()
-                + ln + "*Full Name:* " + user.getFullName()
-                + ln + "*Reviews:* " + user.getReviews();
-        return new LayoutBlock[]{
-                section(section -> section.text(markdownText(mt -> mt.text(text))))
-        };
-    }
-
-    private static LayoutBlock[] buildLayoutForReview(Review review) {
-        if (review == null) return new LayoutBlock[0];
-
-        return new LayoutBlock[]{
-                section(section -> section.text(markdownText(mt -> mt.text(getReviewDescription(review)))))
-        };
-    }
-
-    private static String getReviewDescription(Review review) {
+    private static CompletableFuture<Review> fetchReviewAsync(String reviewId) {
+        CompletableFuture<Review> future = new CompletableFuture<>();
+        DETAILS_EXECUTOR.execute(() -> {
+            try {
+                future.complete(getReview(reviewId));
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Replaces the loading modal with the review's details, or with what went wrong; the user may have closed
+     * the modal meanwhile, in which case Slack refuses the update.
+     */
+    private static void fillInDetails(MethodsClient slack, View opened, String reviewId, Review review,
+                                      Throwable failure, long start) {
+        View modal;
+        if (failure != null) {
+            log.warn("Could not get review {}", reviewId, failure);
+            modal = buildErrorModalView(swarmErrorMessage(
+                    failure instanceof Exception ? (Exception) failure : new IOException(failure)));
+        } else if (review == null) {
+            modal = buildErrorModalView(":warning: Review Not Found!");
+        } else {
+            modal = buildModalView(review);
+        }
+        try {
+            ViewsUpdateResponse viewsUpdateRes = timedSlackCall("views.update", () -> slack.viewsUpdate(r -> r
+                    .viewId(opened.getId())
+                    .hash(opened.getHash())
+                    .view(modal)));
+            if (viewsUpdateRes.isOk()) {
+                Metrics.timer(Metrics.withLabel("details_modal_duration", "stage", "complete")).recordSince(start);
+            } else {
+                log.info("Could not fill in details of review {}: {}", reviewId, viewsUpdateRes.getError());
+            }
+        } catch (IOException | SlackApiException e) {
+            log.warn("Could not fill in details of review {}", reviewId, e);
+        }
+    }
+
+    /**
+     * @return the reviews picked in the Home tab's bulk selection
+     */
+    private static List<String> getSelectedReviews(View view) {
+        if (view == null || view.getState() == null || view.getState().getValues() == null) {
+            return Collections.emptyList();
+        }
+        Map<String, ViewState.Value> bulk = view.getState().getValues().get(BULK_BLOCK_ID);
+        ViewState.Value selection = bulk != null ? bulk.get(BULK_SELECT_ACTION_ID) : null;
+        if (selection == null || selection.getSelectedOptions() == null) return Collections.emptyList();
+
+        List<String> reviewIds = new ArrayList<>();
+        selection.getSelectedOptions().forEach(option -> reviewIds.add(option.getValue()));
+        return reviewIds;
+    }
+
+    /**
+     * Takes the reviews Swarm returned after changing their state into the store and cache, and drops the cached
+     * lists that showed them in their old state.
+     */
+    private static void onStateChanged(ReviewStateWriter.Outcome outcome) {
+        Set<String> involved = new HashSet<>();
+        for (Review review : outcome.getChanged()) {
+            REVIEW_CACHE.put(String.valueOf(review.getId()), review);
+            if (Swarm.SYNC_ENGINE != null) REVIEW_STORE.update(review);
+            if (review.getAuthor() != null) involved.add(review.getAuthor());
+            if (review.getParticipants() != null) involved.addAll(review.getParticipants().keySet());
+        }
+        for (String key : new ArrayList<>(CHANGE_LIST_CACHE.asMap().keySet())) {
+            String[] parts = key.split(":", 3);
+            if (parts.length > 1 && involved.contains(parts[1])) CHANGE_LIST_CACHE.invalidate(key);
+        }
+    }
+
+    /**
+     * Shows the outcome of approving or declining on the Home tab, as a notice on top, or as a reply to the
+     * {@code /changelist} message the button was in.
+     */
+    private static void showStateChangeOutcome(ActionContext ctx, String slackUser, View view, String summary) {
+        try {
+            if (view != null && HOME.getName().equals(view.getType())) {
+                RenderedView home = loadHomeView(ctx.client(), slackUser,
+                        HOME_REVIEW_TYPES.getOrDefault(slackUser, AUTHOR),
+                        HOME_PAGES.getOrDefault(slackUser, HomePage.FIRST), summary);
+                VIEW_PUBLISHER.update(ctx.client(), slackUser, view.getId(), home);
+            } else {
+                ctx.respond(summary);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not show the outcome of changing reviews for {}", slackUser, e);
+        }
+    }
+
+    /**
+     * Swarm records the changes under the app's account, so the summary says who they were made for.
+     */
+    private static String describeStateChange(ReviewState state, ReviewStateWriter.Outcome outcome,
+                                              String swarmUser) {
+        String done = state == ReviewState.APPROVED ? "Approved" : "Declined";
+        String verb = state == ReviewState.APPROVED ? "approve" : "decline";
+        int changed = outcome.getChanged().size();
         StringBuilder sb = new StringBuilder();
-        String ln = System.lineSeparator();
-        sb.append("*Author:* ").append(review.getAuthor()).append(ln)
-          .append("*Description:* ").append(review.getDescription()).append(ln)
-          .append("*Status:* ").append(review.getStateLabel()).append(ln)
-          .append("*Deploy status:* ").append(review.getDeployStatus()).append(ln)
-          .append("*Test status:* ").append(review.getTestStatus()).append(ln)
-          .append("*Commit status:* ").append(review.getCommitStatus()).append(ln)
-          .append("*Commits:* ").append(review.getCommits()).append(ln)
-          .append("*Changes:* ").append(review.getChanges()).append(ln)
-          .append("*Comments count:* ").append(review.getComments()).append(ln)
-          .append("*Participants:* ").append(review.getParticipants()).append(ln);
-        if (review.getCreated() != null) {
-            LocalDate created = Instant.ofEpochMilli(review.getCreated()).atZone(ZoneId.systemDefault()).toLocalDate();
-            sb.append("*Created :* ").append(created.format(ISO_DATE)).append(ln);
-        }
-        if (review.getUpdated() != null) {
-            LocalDate updated = Instant.ofEpochMilli(review.getUpdated()).atZone(ZoneId.systemDefault()).toLocalDate();
-            sb.append("*Last updated :* ").append(updated.format(ISO_DATE)).append(ln);
+        if (changed > 0) {
+            sb.append(":white_check_mark: ").append(done).append(' ').append(changed)
+              .append(changed == 1 ? " review" : " reviews")
+              .append(" for *").append(swarmUser)
+              .append("* (recorded in Swarm under *").append(Swarm.USER).append("*)");
+        }
+        if (!outcome.getFailed().isEmpty()) {
+            if (sb.length() > 0) sb.append(System.lineSeparator());
+            sb.append(":warning: Could not ").append(verb).append(' ');
+            List<String> failures = new ArrayList<>();
+            outcome.getFailed().forEach((reviewId, reason) -> failures.add("*" + reviewId + "* (" + reason + ")"));
+            sb.append(String.join(", ", failures));
         }
         return sb.toString();
     }
 
-    private static Review getReview(String number) throws IOException {
-        try (okhttp3.Response response = makeApiGetCall(REVIEW_URL + number)) {
-            ReviewDetails reviewDetails = null;
-            ResponseBody body = response.body();
-            if (response.isSuccessful() && body != null) {
-                reviewDetails = GSON.fromJson(body.charStream(), ReviewDetails.class);
+    private static String swarmErrorMessage(Exception e) {
+        return e instanceof SwarmUnavailableException
+                ? ":warning: Swarm is unavailable right now, please try again in a minute"
+                : ":warning: Could not get a response from Swarm, please try again";
+    }
+
+    private static Response errorResponse(String error) {
+        return Response.builder().statusCode(500).body(error).build();
+    }
+
+    /**
+     * Builds the Home tab of a Slack user from their own Swarm reviews. The list for the other review type is
+     * fetched concurrently, so switching with "change_review_type" is served from the store or cache, and so is the
+     * page "Load more" leads to.
+     * <p>
+     * The pages shown are fetched one after the other, each after the {@code lastSeen} of the one before; they are
+     * cached like any review list, so paging back and forth only fetches the page that is new.
+     */
+    private static RenderedView loadHomeView(MethodsClient slack, String slackUser, REVIEW_TYPE reviewType,
+                                             HomePage page) throws IOException {
+        return loadHomeView(slack, slackUser, reviewType, page, null);
+    }
+
+    /**
+     * @param notice markdown shown on top of the reviews, may be {@code null}
+     */
+    private static RenderedView loadHomeView(MethodsClient slack, String slackUser, REVIEW_TYPE reviewType,
+                                             HomePage page, String notice) throws IOException {
+        String swarmUser = resolveSwarmUser(slack, slackUser);
+        if (swarmUser == null) {
+            return VIEW_CACHE.render(slackUser, "UNMATCHED", null, SwarmViews::buildUnmatchedHomeView);
+        }
+        REVIEW_TYPE otherType = reviewType == AUTHOR ? PARTICIPANT : AUTHOR;
+        prefetchChangeList(otherType, swarmUser, null);
+
+        List<Review> reviews = new ArrayList<>();
+        ReviewsData firstPage = null;
+        Integer cursor = page.getAfter();
+        boolean more = true;
+        for (int i = 0; i < page.getPages() && more; i++) {
+            ReviewsData pageData = getChangeList(reviewType, swarmUser, cursor);
+            List<Review> pageReviews = pageData != null && pageData.getReviews() != null
+                    ? pageData.getReviews()
+                    : Collections.emptyList();
+            if (firstPage == null) firstPage = pageData;
+            reviews.addAll(pageReviews);
+            cursor = pageData != null ? pageData.getLastSeen() : null;
+            more = pageReviews.size() >= HOME_PAGE_SIZE && cursor != null;
+        }
+        Integer total = firstPage != null ? firstPage.getTotalCount() : null;
+        if (page.getAfter() == null && total != null && reviews.size() >= total) more = false;
+
+        HomePage next = null;
+        if (more) {
+            next = page.next(firstPage.getLastSeen(), HOME_MAX_PAGES);
+            prefetchChangeList(reviewType, swarmUser, cursor);
+        }
+        ReviewsData reviewsData = new ReviewsData();
+        reviewsData.setReviews(reviews);
+        reviewsData.setLastSeen(cursor);
+        reviewsData.setTotalCount(total);
+        HomePage nextPage = next;
+        return VIEW_CACHE.render(slackUser, reviewType.name(), Arrays.asList(reviewsData, page, nextPage, notice),
+                () -> buildHomeView(Swarm.CLIENT.getReviewUrl(), reviewType, reviewsData, page, nextPage, notice));
+    }
+
+    /**
+     * Republishes the Home tab of the Slack users who were shown one for any of the given Swarm users, after
+     * Swarm reported a change to their reviews. Views that come out the same are not sent again, and bursts of
+     * changes are coalesced by the {@link ViewPublisher}.
+     */
+    private static void pushHomeViews(MethodsClient slack, Set<String> swarmUsers) {
+        for (String slackUser : VIEW_CACHE.getPublishedUsers()) {
+            String swarmUser = Swarm.USER_RESOLVER != null ? Swarm.USER_RESOLVER.getCached(slackUser) : Swarm.USER;
+            if (swarmUser == null || !swarmUsers.contains(swarmUser)) continue;
+            try {
+                RenderedView view = loadHomeView(slack, slackUser, HOME_REVIEW_TYPES.getOrDefault(slackUser, AUTHOR),
+                        HOME_PAGES.getOrDefault(slackUser, HomePage.FIRST));
+                if (VIEW_CACHE.isPublished(slackUser, view)) continue;
+
+                VIEW_PUBLISHER.publish(slack, slackUser, view, false, ViewPublisher.Priority.BACKGROUND);
+                Metrics.counter("swarm_webhook_home_pushes_total").inc();
+            } catch (IOException e) {
+                log.warn("Could not push the Home tab of {}", slackUser, e);
             }
-            return reviewDetails != null ? reviewDetails.getReview() : null;
         }
     }
 
-    private static ReviewsData getChangeList(REVIEW_TYPE reviewType) throws IOException {
-        String url;
-        switch (reviewType) {
-            case PARTICIPANT:
-                url = REVIEW_PARTICIPANT_URL + USER;
-                break;
-            case AUTHOR:
-            default:
-                url = REVIEW_AUTHOR_URL + USER;
+    private static String resolveSwarmUser(MethodsClient slack, String slackUser) throws IOException {
+        if (Swarm.USER_RESOLVER == null) return Swarm.USER;
+
+        String swarmUser = Swarm.USER_RESOLVER.resolve(slack, slackUser);
+        if (swarmUser != null && Swarm.SYNC_ENGINE != null) {
+            Swarm.SYNC_ENGINE.track(swarmUser);
         }
-        try (okhttp3.Response response = makeApiGetCall(url)) {
-            ReviewsData reviewsData = null;
-            ResponseBody body = response.body();
-            if (response.isSuccessful() && body != null) {
-                reviewsData = GSON.fromJson(body.charStream(), ReviewsData.class);
+        return swarmUser;
+    }
+
+    private static List<LayoutBlock> buildLayoutForUsers(List<String> usernames) throws IOException {
+        Map<String, User> users = getUsers(usernames);
+        if (users.values().stream().allMatch(Objects::isNull)) return Collections.emptyList();
+
+        List<LayoutBlock> blocks = new ArrayList<>();
+        users.forEach((username, user) -> {
+            if (!blocks.isEmpty()) blocks.add(divider());
+            if (user != null) {
+                blocks.addAll(Arrays.asList(buildLayoutForUser(user)));
+            } else {
+                blocks.add(section(section -> section.text(markdownText(mt -> mt.text(
+                        ":warning: User *" + username + "* Not Found!")))));
             }
-            return reviewsData;
+        });
+        return blocks;
+    }
+
+    /**
+     * @return the review if the store or cache already holds it, without calling Swarm
+     */
+    private static Review getKnownReview(String number) {
+        if (Swarm.SYNC_ENGINE != null && NumberUtils.isDigits(number)) {
+            Review review = REVIEW_STORE.get(Long.parseLong(number));
+            if (review != null) return review;
         }
+        return REVIEW_CACHE.getIfPresent(number);
     }
 
-    private static User getUser(String username) throws IOException {
-        try (okhttp3.Response response = makeApiGetCall(USERS_API_URL + username)) {
-            User user = null;
-            ResponseBody body = response.body();
-            if (response.isSuccessful() && body != null) {
-                User[] users = GSON.fromJson(body.charStream(), User[].class);
-                if (ArrayUtils.isNotEmpty(users)) user = users[0];
-            }
-            return user;
+    private static Review getReview(String number) throws IOException {
+        if (Swarm.SYNC_ENGINE != null && NumberUtils.isDigits(number)) {
+            Review review = REVIEW_STORE.get(Long.parseLong(number));
+            if (review != null) return review;
+        }
+        return REVIEW_CACHE.get(number, () -> Swarm.CLIENT.getReview(number));
+    }
+
+    /**
+     * @param after the {@code lastSeen} of the page before, or {@code null} for the newest reviews
+     */
+    private static ReviewsData getChangeList(REVIEW_TYPE reviewType, String swarmUser, Integer after)
+            throws IOException {
+        ReviewRole role = reviewType == PARTICIPANT ? ReviewRole.PARTICIPANT : ReviewRole.AUTHOR;
+        if (Swarm.SYNC_ENGINE != null && Swarm.SYNC_ENGINE.isSynced(swarmUser, role)) {
+            return REVIEW_STORE.getReviews(swarmUser, role, HOME_PAGE_SIZE, after);
         }
+        return getCachedChangeList(reviewType, swarmUser, after,
+                () -> Swarm.CLIENT.getReviewPage(role, swarmUser, HOME_PAGE_SIZE, after));
+    }
+
+    /**
+     * Fetches a page into the cache in the background, unless the store already holds it.
+     */
+    private static void prefetchChangeList(REVIEW_TYPE reviewType, String swarmUser, Integer after) {
+        ReviewRole role = reviewType == PARTICIPANT ? ReviewRole.PARTICIPANT : ReviewRole.AUTHOR;
+        if (Swarm.SYNC_ENGINE != null && Swarm.SYNC_ENGINE.isSynced(swarmUser, role)) return;
+
+        HOME_PREFETCH_EXECUTOR.execute(() -> {
+            try {
+                getCachedChangeList(reviewType, swarmUser, after,
+                        () -> Swarm.CLIENT.getReviews(role, swarmUser, HOME_PAGE_SIZE, after));
+                Metrics.counter(Metrics.withLabel("swarm_home_prefetches_total", "page",
+                        after == null ? "first" : "next")).inc();
+            } catch (Exception e) {
+                log.warn("Could not prefetch {} reviews of {} after {}", reviewType, swarmUser, after, e);
+            }
+        });
     }
 
-    private static okhttp3.Response makeApiGetCall(String url) throws IOException {
-        Request request = new Request.Builder().url(url).build();
-        return REST_CLIENT.newCall(request).execute();
+    private static ReviewsData getCachedChangeList(REVIEW_TYPE reviewType, String swarmUser, Integer after,
+                                                   TtlLruCache.Loader<ReviewsData> loader) throws IOException {
+        return CHANGE_LIST_CACHE.get(reviewType.name() + ":" + swarmUser + ":" + after, () -> {
+            ReviewsData reviewsData = loader.load();
+            // the list already carries full reviews, so "View Details" right after opening Home needs no extra call
+            if (reviewsData != null && reviewsData.getReviews() != null) {
+                reviewsData.getReviews().forEach(review -> REVIEW_CACHE.put(String.valueOf(review.getId()), review));
+            }
+            return reviewsData;
+        });
     }
 
-    private static OkHttpClient createAuthenticatedClient(String username, String password) {
-        return new OkHttpClient.Builder().addInterceptor(chain -> {
-            String credential = Credentials.basic(username, password);
-            Request request = chain.request().newBuilder().addHeader(AUTHORIZATION_HEADER, credential).build();
-            return chain.proceed(request);
-        }).build();
+    private static Map<String, User> getUsers(List<String> usernames) throws IOException {
+        return USER_CACHE.getAll(usernames, Swarm.USER_BATCHER::resolveAll);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.salesforce.slack.swarm;
+
+import com.salesforce.slack.swarm.cache.TtlLruCache;
+import com.salesforce.slack.swarm.client.UserBatcher;
+import com.salesforce.slack.swarm.model.User;
+import com.slack.api.methods.MethodsClient;
+import com.slack.api.methods.SlackApiException;
+import com.slack.api.methods.response.users.UsersInfoResponse;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Maps Slack users to Swarm users by email.
+ * <p>
+ * The Swarm username is expected to be the local part of the Slack profile email; the match is only accepted when
+ * the Swarm user's email is the same address. Results, including "no match", are cached per Slack user.
+ */
+public class SwarmUserResolver {
+
+    private static final String UNMATCHED = "";
+
+    private final UserBatcher users;
+    private final TtlLruCache<String, String> mapping;
+
+    public SwarmUserResolver(UserBatcher users, TtlLruCache<String, String> mapping) {
+        this.users = users;
+        this.mapping = mapping;
+    }
+
+    /**
+     * @return the Swarm username, or {@code null} if the Slack user has no matching Swarm account
+     */
+    public String resolve(MethodsClient slack, String slackUserId) throws IOException {
+        String swarmUser = mapping.get(slackUserId, () -> lookup(slack, slackUserId));
+        return StringUtils.isNotEmpty(swarmUser) ? swarmUser : null;
+    }
+
+    /**
+     * @return the remembered Swarm username, or {@code null} if there is none or the Slack user has no match
+     */
+    public String getCached(String slackUserId) {
+        return StringUtils.defaultIfEmpty(mapping.getIfPresent(slackUserId), null);
+    }
+
+    /**
+     * @return Swarm usernames by Slack user id, for the users that have a match
+     */
+    public Map<String, String> getMatches() {
+        Map<String, String> matches = mapping.asMap();
+        matches.values().removeIf(StringUtils::isEmpty);
+        return matches;
+    }
+
+    /**
+     * Remembers matches found before a restart; they are looked up again once their TTL is over.
+     */
+    public void restore(Map<String, String> matches) {
+        matches.forEach(mapping::put);
+    }
+
+    private String lookup(MethodsClient slack, String slackUserId) throws IOException {
+        UsersInfoResponse response;
+        try {
+            response = slack.usersInfo(r -> r.user(slackUserId));
+        } catch (SlackApiException e) {
+            throw new IOException("Could not get Slack user " + slackUserId, e);
+        }
+        if (!response.isOk()) {
+            throw new IOException("Could not get Slack user " + slackUserId + ": " + response.getError());
+        }
+        String email = response.getUser() != null && response.getUser().getProfile() != null
+                ? response.getUser().getProfile().getEmail()
+                : null;
+        if (StringUtils.isBlank(email)) return UNMATCHED;
+
+        User user = users.resolve(StringUtils.substringBefore(email, "@"));
+        return user != null && email.equalsIgnoreCase(user.getEmail()) ? user.getUsername() : UNMATCHED;
+    }
+
+}
@@ -0,0 +1,385 @@
+package com.salesforce.slack.swarm;
+
+import com.salesforce.slack.swarm.SlackApp.REVIEW_TYPE;
+import com.salesforce.slack.swarm.model.Review;
+import com.salesforce.slack.swarm.model.ReviewsData;
+import com.salesforce.slack.swarm.model.User;
+import com.slack.api.model.block.LayoutBlock;
+import com.slack.api.model.block.SectionBlock;
+import com.slack.api.model.block.composition.MarkdownTextObject;
+import com.slack.api.model.block.composition.OptionObject;
+import com.slack.api.model.block.composition.PlainTextObject;
+import com.slack.api.model.block.composition.TextObject;
+import com.slack.api.model.block.element.BlockElement;
+import com.slack.api.model.view.View;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.salesforce.slack.swarm.SlackApp.REVIEW_TYPE.AUTHOR;
+import static com.salesforce.slack.swarm.SlackApp.REVIEW_TYPE.PARTICIPANT;
+import static com.slack.api.model.block.Blocks.*;
+import static com.slack.api.model.block.composition.BlockCompositions.markdownText;
+import static com.slack.api.model.block.composition.BlockCompositions.plainText;
+import static com.slack.api.model.block.element.BlockElements.*;
+import static com.slack.api.model.view.Views.view;
+import static com.slack.api.model.view.Views.viewTitle;
+import static java.time.format.DateTimeFormatter.ISO_DATE;
+
+/**
+ * Block Kit views and layouts of the app. Rendering is pure: everything shown is passed in, nothing is fetched.
+ */
+final class SwarmViews {
+
+    private SwarmViews() {
+    }
+
+    static View buildUnmatchedHomeView() {
+        return view(view -> view
+                .type("home")
+                .blocks(asBlocks(section(section -> section.text(markdownText(mt -> mt.text(
+                        ":warning: Could not find a Swarm user with the email address of your Slack profile"))))))
+        );
+    }
+
+    /**
+     * Most blocks Slack accepts in a view.
+     */
+    static final int MAX_BLOCKS = 100;
+    /**
+     * Blocks of the Home view around its reviews: notice, review type, bulk actions, title, divider, summary, paging
+     * and the last divider.
+     */
+    private static final int HOME_CHROME_BLOCKS = 8;
+    /**
+     * Most options Slack accepts in a select menu, and the longest text of one.
+     */
+    private static final int MAX_OPTIONS = 100;
+    private static final int MAX_OPTION_TEXT = 75;
+    static final String BULK_BLOCK_ID = "bulk_reviews";
+    static final String BULK_SELECT_ACTION_ID = "select_reviews";
+    /**
+     * Blocks {@link #addCompactLayoutForReview} adds per review.
+     */
+    private static final int BLOCKS_PER_REVIEW = 4;
+    /**
+     * Most reviews the Home view can show without going over {@link #MAX_BLOCKS}.
+     */
+    static final int MAX_HOME_REVIEWS = (MAX_BLOCKS - HOME_CHROME_BLOCKS) / BLOCKS_PER_REVIEW;
+
+    /**
+     * @param reviewUrl URL review numbers are appended to, to link to them
+     */
+    static View buildHomeView(String reviewUrl, REVIEW_TYPE reviewType, ReviewsData reviewsData) {
+        return buildHomeView(reviewUrl, reviewType, reviewsData, HomePage.FIRST, null, null);
+    }
+
+    /**
+     * Shows the reviews of {@code page}, at most {@link #MAX_HOME_REVIEWS} of them, with a "Load more" button
+     * leading to {@code next}, if there is more to show, and a "Newest" button when the newest reviews are not shown.
+     * Reviews waiting for a review can be selected and approved or declined together.
+     *
+     * @param notice markdown shown on top, e.g. the outcome of approving reviews, may be {@code null}
+     */
+    static View buildHomeView(String reviewUrl, REVIEW_TYPE reviewType, ReviewsData reviewsData, HomePage page,
+                              HomePage next, String notice) {
+        List<LayoutBlock> blocks = new ArrayList<>();
+        if (notice != null) {
+            blocks.add(section(section -> section.text(markdownText(mt -> mt.text(notice)))));
+        }
+        addReviewTypesToBlocks(reviewType, blocks);
+        addBulkActionsToBlocks(reviewsData, blocks);
+        addReviewsToBlocks(reviewUrl, reviewsData, blocks);
+        addPagingToBlocks(page, next, blocks);
+        blocks.add(divider());
+
+        return view(view -> view
+                .type("home")
+                .blocks(asBlocks(blocks.toArray(LayoutBlock[]::new)))
+        );
+    }
+
+    static View buildModalView(Review review) {
+        return view(view -> view
+                .callbackId("pullrequest-details")
+                .type("modal")
+                .notifyOnClose(false)
+                .title(viewTitle(title -> title.type("plain_text").text("Review Details").emoji(true)))
+                .blocks(asBlocks(buildLayoutForReview(review)))
+        );
+    }
+
+    /**
+     * The details modal as it opens, before the review has been fetched: the summary of the review as the view the
+     * button was clicked in shows it, or just its number.
+     *
+     * @param summary markdown of the review's section in that view, may be {@code null}
+     */
+    static View buildLoadingModalView(String reviewId, String summary) {
+        String text = summary != null ? summary : "*Change List:* " + reviewId;
+        return view(view -> view
+                .callbackId("pullrequest-details")
+                .type("modal")
+                .notifyOnClose(false)
+                .title(viewTitle(title -> title.type("plain_text").text("Review Details").emoji(true)))
+                .blocks(asBlocks(
+                        section(section -> section.text(markdownText(mt -> mt.text(text)))),
+                        context(context -> context.elements(asContextElements(
+                                markdownText(":hourglass_flowing_sand: Loading details from Swarm...")))))
+                )
+        );
+    }
+
+    static View buildErrorModalView(String error) {
+        return view(view -> view
+                .callbackId("pullrequest-details")
+                .type("modal")
+                .notifyOnClose(false)
+                .title(viewTitle(title -> title.type("plain_text").text("Review Details").emoji(true)))
+                .blocks(asBlocks(section(section -> section.text(markdownText(mt -> mt.text(error))))))
+        );
+    }
+
+    private static void addReviewTypesToBlocks(REVIEW_TYPE reviewType, List<LayoutBlock> blocks) {
+        List<OptionObject> options = new ArrayList<>(2);
+        OptionObject option1 = OptionObject.builder()
+                .value(AUTHOR.name())
+                .text(new PlainTextObject(AUTHOR.getDescription(), false))
+                .build();
+        OptionObject option2 = OptionObject.builder()
+                .value(PARTICIPANT.name())
+                .text(new PlainTextObject(PARTICIPANT.getDescription(), false))
+                .build();
+        options.add(option1);
+        options.add(option2);
+        OptionObject initialOption;
+        switch (reviewType) {
+            case AUTHOR:
+                initialOption = option1;
+                break;
+            case PARTICIPANT:
+                initialOption = option2;
+                break;
+            default:
+                initialOption = null;
+        }
+        blocks.add(section(section -> section
+                        .text(markdownText(mt -> mt.text("*Review request type:*")))
+                        .accessory(staticSelect(staticSelect -> staticSelect
+                                .actionId("change_review_type").options(options).initialOption(initialOption)))
+                )
+        );
+    }
+
+    private static void addBulkActionsToBlocks(ReviewsData reviewsData, List<LayoutBlock> blocks) {
+        if (reviewsData == null || CollectionUtils.isEmpty(reviewsData.getReviews())) return;
+
+        List<OptionObject> options = new ArrayList<>();
+        for (Review review : reviewsData.getReviews()) {
+            if (options.size() == MAX_OPTIONS) break;
+            if (review.getState() == null || !review.getState().startsWith("needs")) continue;
+            options.add(OptionObject.builder()
+                    .value(String.valueOf(review.getId()))
+                    .text(new PlainTextObject(StringUtils.abbreviate(review.getId() + " " +
+                            StringUtils.normalizeSpace(StringUtils.defaultString(review.getDescription())), MAX_OPTION_TEXT), false))
+                    .build());
+        }
+        if (options.isEmpty()) return;
+
+        blocks.add(actions(actions -> actions
+                .blockId(BULK_BLOCK_ID)
+                .elements(asElements(
+                        multiStaticSelect(select -> select
+                                .actionId(BULK_SELECT_ACTION_ID)
+                                .placeholder(plainText("Select reviews"))
+                                .options(options)),
+                        button(b -> b.text(plainText(pt -> pt.text("Approve selected")))
+                                .style("primary").value("approve_selected")
+                                .actionId("approve_selected")),
+                        button(b -> b.text(plainText(pt -> pt.text("Decline selected")))
+                                .style("danger").value("decline_selected")
+                                .actionId("decline_selected"))))));
+    }
+
+    private static void addReviewsToBlocks(String reviewUrl, ReviewsData reviewsData, List<LayoutBlock> blocks) {
+        if (reviewsData == null || CollectionUtils.isEmpty(reviewsData.getReviews())) return;
+
+        String lastSeen = reviewsData.getLastSeen() != null ? reviewsData.getLastSeen().toString() : "Unknown";
+        int total = reviewsData.getTotalCount() != null ? reviewsData.getTotalCount() : 0;
+        blocks.add(section(section -> section.text(markdownText(mt -> mt.text("*Review requests*")))));
+        List<Review> reviews = reviewsData.getReviews();
+        reviews.subList(0, Math.min(reviews.size(), MAX_HOME_REVIEWS))
+                .forEach(review -> addCompactLayoutForReview(reviewUrl, review, blocks));
+        blocks.add(divider());
+        blocks.add(section(section -> section.text(
+                markdownText(mt -> mt.text("Last seen: " + lastSeen + "\tTotal reviews: " + total))))
+        );
+    }
+
+    private static void addPagingToBlocks(HomePage page, HomePage next, List<LayoutBlock> blocks) {
+        List<BlockElement> buttons = new ArrayList<>(2);
+        if (page.getAfter() != null) {
+            buttons.add(button(b -> b.text(plainText(pt -> pt.text("Newest")))
+                    .value(HomePage.FIRST.toValue())
+                    .actionId("home_page_newest")));
+        }
+        if (next != null) {
+            buttons.add(button(b -> b.text(plainText(pt -> pt.text("Load more")))
+                    .value(next.toValue())
+                    .actionId("home_page_more")));
+        }
+        if (buttons.isEmpty()) return;
+        blocks.add(actions(actions -> actions
+                .elements(asElements(buttons.toArray(BlockElement[]::new)))));
+    }
+
+    /**
+     * The best matches of a review search, with how many reviews matched in all.
+     */
+    static List<LayoutBlock> buildSearchResults(String reviewUrl, String query, ReviewsData results) {
+        List<LayoutBlock> blocks = new ArrayList<>();
+        int shown = results.getReviews().size();
+        int total = results.getTotalCount() != null ? results.getTotalCount() : shown;
+        String summary = total == 0
+                ? ":mag: No reviews match `" + query + "`"
+                : ":mag: " + total + (total == 1 ? " review matches" : " reviews match") + " `" + query + "`"
+                        + (total > shown ? ", showing the best " + shown : "");
+        blocks.add(section(section -> section.text(markdownText(mt -> mt.text(summary)))));
+        results.getReviews().forEach(review -> addCompactLayoutForReview(reviewUrl, review, blocks));
+        return blocks;
+    }
+
+    static LayoutBlock[] buildCompactLayoutForReview(String reviewUrl, Review review) {
+        List<LayoutBlock> blocks = new ArrayList<>(BLOCKS_PER_REVIEW);
+        addCompactLayoutForReview(reviewUrl, review, blocks);
+        return blocks.toArray(LayoutBlock[]::new);
+    }
+
+    /**
+     * Appends the blocks of a review to {@code blocks}, which views of many reviews build up without copying.
+     */
+    static void addCompactLayoutForReview(String reviewUrl, Review review, List<LayoutBlock> blocks) {
+        if (review == null) return;
+
+        String ln = System.lineSeparator();
+        blocks.add(divider());
+        String sb = "*Change List:* " + "<" + reviewUrl + review.getId() + "| :link: " + review.getId() + ">" +
+                ln + "*Description:* " + review.getDescription() +
+                ln + "*Status:* " + review.getStateLabel();
+        blocks.add(section(section -> section
+                        .blockId(reviewBlockId(review.getId()))
+                        .text(markdownText(mt -> mt.text(sb)))
+                        .accessory(imageElement(image -> image
+                                .imageUrl("https://swarm.workshop.perforce.com/view/guest/perforce_software/slack/main/images/60x60-Helix-Bee.png")
+                                .altText("Helix Swarm Bee")))
+                )
+        );
+        LocalDate date = Instant.ofEpochMilli(review.getCreated()).atZone(ZoneId.systemDefault()).toLocalDate();
+        blocks.add(context(context -> context
+                .elements(asContextElements(
+                        imageElement(image ->
+                                image.imageUrl("https://api.slack.com/img/blocks/bkb_template_images/task-icon.png")
+                                        .altText("Changelist")
+                        ),
+                        markdownText("Submitted by: *" + review.getAuthor() + "* on " + date.format(ISO_DATE))
+                ))));
+
+        List<BlockElement> actionsList = new ArrayList<>();
+        actionsList.add(button(b -> b.text(plainText(pt -> pt
+                .text("View Details")))
+                .value("details_" + review.getId())
+                .actionId("details_" + review.getId())));
+
+        if (review.getState().startsWith("needs")) {
+            actionsList.add(button(b -> b
+                    .text(plainText(pt -> pt.text("Approve")))
+                    .style("primary").value("approve_" + review.getId())
+                    .actionId("approve_" + review.getId())));
+
+            actionsList.add(button(b -> b
+                    .text(plainText(pt -> pt.text("Decline")))
+                    .style("danger").value("decline_" + review.getId())
+                    .actionId("decline_" + review.getId())));
+        }
+        blocks.add(actions(actions -> actions.elements(asElements(actionsList.toArray(BlockElement[]::new)))));
+    }
+
+    /**
+     * @return the id of the section summarizing a review in a compact layout
+     */
+    static String reviewBlockId(Object reviewId) {
+        return "review_" + reviewId;
+    }
+
+    /**
+     * @return the markdown of a review's section in a view built with {@link #addCompactLayoutForReview}, or
+     * {@code null} if the view does not show the review
+     */
+    static String findReviewSummary(View view, String reviewId) {
+        if (view == null || view.getBlocks() == null) return null;
+
+        String blockId = reviewBlockId(reviewId);
+        for (LayoutBlock block : view.getBlocks()) {
+            if (block instanceof SectionBlock && blockId.equals(((SectionBlock) block).getBlockId())) {
+                TextObject text = ((SectionBlock) block).getText();
+                return text instanceof MarkdownTextObject ? ((MarkdownTextObject) text).getText() : null;
+            }
+        }
+        return null;
+    }
+
+    static LayoutBlock[] buildLayoutForUser(User user) {
+        if (user == null) return new LayoutBlock[0];
+
+        String ln = System.lineSeparator();
+        String text = "*Username:* " + user.getUsername()
+                + ln + "*Email:* " + user.getEmail()
+                + ln + "*Full Name:* " + user.getFullName()
+                + ln + "*Reviews:* " + user.getReviews();
+        return new LayoutBlock[]{
+                section(section -> section.text(markdownText(mt -> mt.text(text))))
+        };
+    }
+
+    private static LayoutBlock[] buildLayoutForReview(Review review) {
+        if (review == null) return new LayoutBlock[0];
+
+        return new LayoutBlock[]{
+                section(section -> section.text(markdownText(mt -> mt.text(getReviewDescription(review)))))
+        };
+    }
+
+    static String getReviewDescription(Review review) {
+        StringBuilder sb = new StringBuilder();
+        String ln = System.lineSeparator();
+        sb.append("*Author:* ").append(review.getAuthor()).append(ln)
+          .append("*Description:* ").append(review.getDescription()).append(ln)
+          .append("*Status:* ").append(review.getStateLabel()).append(ln)
+          .append("*Deploy status:* ").append(review.getDeployStatus()).append(ln)
+          .append("*Test status:* ").append(review.getTestStatus()).append(ln)
+          .append("*Commit status:* ").append(review.getCommitStatus()).append(ln)
+          .append("*Commits:* ").append(review.getCommits()).append(ln)
+          .append("*Changes:* ").append(review.getChanges()).append(ln)
+          .append("*Comments count:* ").append(review.getComments()).append(ln)
+          .append("*Participants:* ").append(getParticipantNames(review)).append(ln);
+        if (review.getCreated() != null) {
+            LocalDate created = Instant.ofEpochMilli(review.getCreated()).atZone(ZoneId.systemDefault()).toLocalDate();
+            sb.append("*Created :* ").append(created.format(ISO_DATE)).append(ln);
+        }
+        if (review.getUpdated() != null) {
+            LocalDate updated = Instant.ofEpochMilli(review.getUpdated()).atZone(ZoneId.systemDefault()).toLocalDate();
+            sb.append("*Last updated :* ").append(updated.format(ISO_DATE)).append(ln);
+        }
+        return sb.toString();
+    }
+
+    private static String getParticipantNames(Review review) {
+        return review.getParticipants() != null ? String.join(", ", review.getParticipants().keySet()) : null;
+    }
+
+}
@@ -0,0 +1,131 @@
+package com.salesforce.slack.swarm.async;
+
+import com.salesforce.slack.swarm.metrics.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * Bounded executor for the "ack now, respond later" mode of slash commands.
+ * <p>
+ * The handler acks Slack with a placeholder and hands the Swarm lookup to this executor; the job then posts
+ * the final blocks through the payload's {@code response_url}. When the queue is full the job is refused so that
+ * the handler can still ack within Slack's 3 second deadline.
+ * <p>
+ * With {@link #virtualThreads(String, int)} every job gets its own virtual thread instead, so blocking Swarm and
+ * Slack calls no longer compete for a small pool; a limit on running jobs takes the place of the queue.
+ */
+@Slf4j
+public class AsyncCommandExecutor {
+
+    @FunctionalInterface
+    public interface Job {
+        void run() throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface ErrorHandler {
+        void onError(Exception e) throws Exception;
+    }
+
+    private final ExecutorService executor;
+    private final IntSupplier queueDepth;
+    private final Semaphore running;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Metrics.Timer latency;
+    private final Metrics.Counter rejected;
+    private final Metrics.Counter failed;
+
+    public AsyncCommandExecutor(String name, int threads, int queueCapacity) {
+        this(name, newPool(name, threads, queueCapacity), null);
+    }
+
+    private AsyncCommandExecutor(String name, ExecutorService executor, Semaphore running) {
+        this.executor = executor;
+        this.queueDepth = executor instanceof ThreadPoolExecutor
+                ? ((ThreadPoolExecutor) executor).getQueue()::size
+                : () -> 0;
+        this.running = running;
+        this.latency = Metrics.timer(name + "_latency");
+        this.rejected = Metrics.counter(name + "_rejected_total");
+        this.failed = Metrics.counter(name + "_failed_total");
+        Metrics.gauge(name + "_queue_depth", queueDepth::getAsInt);
+        Metrics.gauge(name + "_in_flight", inFlight::get);
+    }
+
+    /**
+     * Runs every job on a new virtual thread; needs JDK 21 or newer, see {@link VirtualThreads}.
+     *
+     * @param maxRunning jobs running at once, more are refused
+     */
+    public static AsyncCommandExecutor virtualThreads(String name, int maxRunning) {
+        return new AsyncCommandExecutor(name, VirtualThreads.newThreadPerTaskExecutor(name + "-"),
+                new Semaphore(maxRunning));
+    }
+
+    private static ThreadPoolExecutor newPool(String name, int threads, int queueCapacity) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new BasicThreadFactory.Builder().namingPattern(name + "-%d").daemon(true).build(),
+                new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Schedules the job; end-to-end latency is measured from {@code receivedAtNanos}, i.e. when the
+     * handler got the request, until the job finished responding.
+     *
+     * @return {@code false} if the executor is saturated and the job was not accepted
+     */
+    public boolean submit(long receivedAtNanos, Job job, ErrorHandler errorHandler) {
+        if (running != null && !running.tryAcquire()) {
+            rejected.inc();
+            log.warn("Async command rejected, {} running", inFlight.get());
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                inFlight.incrementAndGet();
+                try {
+                    job.run();
+                } catch (Exception e) {
+                    failed.inc();
+                    log.error("Async command failed", e);
+                    try {
+                        errorHandler.onError(e);
+                    } catch (Exception ex) {
+                        log.error("Could not report async command failure", ex);
+                    }
+                } finally {
+                    inFlight.decrementAndGet();
+                    latency.recordSince(receivedAtNanos);
+                    if (running != null) running.release();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            if (running != null) running.release();
+            rejected.inc();
+            log.warn("Async command rejected, queue depth {}", queueDepth.getAsInt());
+            return false;
+        }
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+}
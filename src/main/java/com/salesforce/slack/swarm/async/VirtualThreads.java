@@ -0,0 +1,77 @@
+package com.salesforce.slack.swarm.async;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Virtual threads (JDK 21+) for an app that is still compiled for Java 11, looked up reflectively so the same
+ * jar runs on both. On an older runtime {@link #isAvailable()} is {@code false} and the factories throw.
+ */
+public final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method FACTORY;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        Method newThreadPerTaskExecutor = null;
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builder.getMethod("name", String.class, long.class);
+            factory = builder.getMethod("factory");
+            newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            // a preview feature on JDK 19 and 20 without --enable-preview
+            ofVirtual.invoke(null);
+        } catch (ReflectiveOperationException | LinkageError | UnsupportedOperationException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isAvailable() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * @return a factory of virtual threads named {@code namePrefix0}, {@code namePrefix1}, ...
+     */
+    public static ThreadFactory newThreadFactory(String namePrefix) {
+        if (!isAvailable()) {
+            throw new UnsupportedOperationException("Virtual threads need JDK 21 or newer, running on "
+                    + System.getProperty("java.version"));
+        }
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix, 0L);
+            return (ThreadFactory) FACTORY.invoke(builder);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Could not create a virtual thread factory", e);
+        }
+    }
+
+    /**
+     * @return an executor starting a new virtual thread for every task
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+        ThreadFactory threadFactory = newThreadFactory(namePrefix);
+        try {
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Could not create a virtual thread executor", e);
+        }
+    }
+
+}
@@ -0,0 +1,239 @@
+package com.salesforce.slack.swarm.cache;
+
+import com.salesforce.slack.swarm.metrics.Metrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size-bounded LRU cache with a time-to-live and a stale-while-revalidate window.
+ * <p>
+ * An entry younger than the TTL is served as is. An entry past the TTL but still inside the stale window is
+ * served immediately while a single background refresh reloads it. Anything older is loaded synchronously.
+ * {@code null} values (e.g. "not found" from Swarm) are never cached.
+ */
+@Slf4j
+public class TtlLruCache<K, V> {
+
+    @FunctionalInterface
+    public interface Loader<V> {
+        V load() throws IOException;
+    }
+
+    /**
+     * Loads several keys at once; keys it has no value for may be left out or map to {@code null}.
+     */
+    @FunctionalInterface
+    public interface BatchLoader<K, V> {
+        Map<K, V> load(Collection<K> keys) throws IOException;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long loadedAt;
+
+        private Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final String name;
+    private final long ttlNanos;
+    private final long staleNanos;
+    private final Executor refreshExecutor;
+    private final Map<K, Entry<V>> entries;
+    private final Set<K> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final Metrics.Counter hits;
+    private final Metrics.Counter staleHits;
+    private final Metrics.Counter misses;
+    private final Metrics.Counter evictions;
+    private final Metrics.Counter refreshFailures;
+
+    public TtlLruCache(String name, int maxSize, long ttl, long staleWindow, TimeUnit unit, Executor refreshExecutor) {
+        this.name = name;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.staleNanos = unit.toNanos(staleWindow);
+        this.refreshExecutor = refreshExecutor;
+        this.hits = Metrics.counter(name + "_cache_hits_total");
+        this.staleHits = Metrics.counter(name + "_cache_stale_hits_total");
+        this.misses = Metrics.counter(name + "_cache_misses_total");
+        this.evictions = Metrics.counter(name + "_cache_evictions_total");
+        this.refreshFailures = Metrics.counter(name + "_cache_refresh_failures_total");
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > maxSize) {
+                    evictions.inc();
+                    return true;
+                }
+                return false;
+            }
+        };
+        Metrics.gauge(name + "_cache_size", this::size);
+    }
+
+    public V get(K key, Loader<V> loader) throws IOException {
+        Entry<V> entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null) {
+            long age = System.nanoTime() - entry.loadedAt;
+            if (age <= ttlNanos) {
+                hits.inc();
+                return entry.value;
+            }
+            if (age <= ttlNanos + staleNanos) {
+                staleHits.inc();
+                refreshInBackground(key, loader);
+                return entry.value;
+            }
+        }
+        misses.inc();
+        V value = loader.load();
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * Same as {@link #get} for several keys: fresh entries are served as is, stale ones are served while one
+     * background call of the loader refreshes them together, and all missing keys are loaded with one call.
+     *
+     * @return the values in the order of the keys, {@code null} for keys the loader has no value for
+     */
+    public Map<K, V> getAll(Collection<K> keys, BatchLoader<K, V> loader) throws IOException {
+        Map<K, V> values = new LinkedHashMap<>();
+        List<K> stale = new ArrayList<>();
+        List<K> missing = new ArrayList<>();
+        long now = System.nanoTime();
+        for (K key : keys) {
+            Entry<V> entry;
+            synchronized (entries) {
+                entry = entries.get(key);
+            }
+            long age = entry != null ? now - entry.loadedAt : Long.MAX_VALUE;
+            if (age <= ttlNanos) {
+                hits.inc();
+                values.put(key, entry.value);
+            } else if (age <= ttlNanos + staleNanos) {
+                staleHits.inc();
+                values.put(key, entry.value);
+                if (refreshing.add(key)) stale.add(key);
+            } else {
+                misses.inc();
+                values.put(key, null);
+                missing.add(key);
+            }
+        }
+        if (!stale.isEmpty()) refreshAllInBackground(stale, loader);
+        if (!missing.isEmpty()) {
+            Map<K, V> loaded = loader.load(missing);
+            for (K key : missing) {
+                V value = loaded.get(key);
+                put(key, value);
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
+    public V getIfPresent(K key) {
+        Entry<V> entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        return entry != null && System.nanoTime() - entry.loadedAt <= ttlNanos + staleNanos ? entry.value : null;
+    }
+
+    public void put(K key, V value) {
+        if (value == null) {
+            invalidate(key);
+            return;
+        }
+        Entry<V> entry = new Entry<>(value, System.nanoTime());
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * @return a copy of the entries that would still be served, e.g. to persist them
+     */
+    public Map<K, V> asMap() {
+        long now = System.nanoTime();
+        Map<K, V> copy = new LinkedHashMap<>();
+        synchronized (entries) {
+            entries.forEach((key, entry) -> {
+                if (now - entry.loadedAt <= ttlNanos + staleNanos) copy.put(key, entry.value);
+            });
+        }
+        return copy;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void refreshInBackground(K key, Loader<V> loader) {
+        if (!refreshing.add(key)) return;
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    put(key, loader.load());
+                } catch (Exception e) {
+                    refreshFailures.inc();
+                    log.warn("Could not refresh {} cache entry {}", name, key, e);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+            refreshFailures.inc();
+        }
+    }
+
+    /**
+     * @param keys already marked as refreshing
+     */
+    private void refreshAllInBackground(List<K> keys, BatchLoader<K, V> loader) {
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    Map<K, V> loaded = loader.load(keys);
+                    keys.forEach(key -> put(key, loaded.get(key)));
+                } catch (Exception e) {
+                    refreshFailures.inc();
+                    log.warn("Could not refresh {} cache entries {}", name, keys, e);
+                } finally {
+                    keys.forEach(refreshing::remove);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            keys.forEach(refreshing::remove);
+            refreshFailures.inc();
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.salesforce.slack.swarm.client;
+
+import com.salesforce.slack.swarm.metrics.Metrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Consecutive-failure circuit breaker.
+ * <p>
+ * After {@code failureThreshold} failures in a row the circuit opens and calls fail fast. Once {@code openMillis}
+ * have passed a single probe call is let through (half-open): its success closes the circuit, its failure opens it
+ * again. Every call allowed by {@link #tryAcquire()} must be reported with {@link #onSuccess(long)} or
+ * {@link #onFailure(long)}, passing the permit it was given.
+ * <p>
+ * A permit carries the generation of the circuit, which every change of state starts anew, and only outcomes of the
+ * current generation count: a call that started before the circuit opened and succeeds while the probe is in
+ * flight neither closes the circuit nor frees the probe slot, and its failure after the circuit closed again does
+ * not count towards opening it.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * What {@link #tryAcquire()} returns for a call that must not be made.
+     */
+    public static final long REJECTED = -1;
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private long generation;
+    private boolean probeInFlight;
+
+    private final Metrics.Counter opened;
+    private final Metrics.Counter halfOpened;
+    private final Metrics.Counter closed;
+    private final Metrics.Counter rejected;
+
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.opened = Metrics.counter(name + "_circuit_opened_total");
+        this.halfOpened = Metrics.counter(name + "_circuit_half_opened_total");
+        this.closed = Metrics.counter(name + "_circuit_closed_total");
+        this.rejected = Metrics.counter(name + "_circuit_rejections_total");
+        Metrics.gauge(name + "_circuit_state", () -> getState().ordinal());
+    }
+
+    /**
+     * @return the permit to report the outcome of the call with, or {@link #REJECTED}
+     */
+    public synchronized long tryAcquire() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.CLOSED) return generation;
+        if (state == State.HALF_OPEN && !probeInFlight) {
+            probeInFlight = true;
+            return generation;
+        }
+        rejected.inc();
+        return REJECTED;
+    }
+
+    public synchronized void onSuccess(long permit) {
+        if (permit != generation) return;
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            transitionTo(State.CLOSED);
+        }
+    }
+
+    public synchronized void onFailure(long permit) {
+        if (permit != generation) return;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            transitionTo(State.OPEN);
+        } else if (state == State.CLOSED && consecutiveFailures >= failureThreshold) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void transitionTo(State newState) {
+        log.warn("{} circuit breaker {} -> {}", name, state, newState);
+        state = newState;
+        generation++;
+        switch (newState) {
+            case OPEN:
+                openedAt = System.currentTimeMillis();
+                opened.inc();
+                break;
+            case HALF_OPEN:
+                halfOpened.inc();
+                break;
+            case CLOSED:
+                closed.inc();
+                break;
+        }
+    }
+
+}
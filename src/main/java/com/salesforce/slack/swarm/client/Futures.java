@@ -0,0 +1,35 @@
+package com.salesforce.slack.swarm.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+final class Futures {
+
+    private Futures() {
+    }
+
+    /**
+     * Waits for a future completed by another thread, rethrowing its failure as the {@link IOException} the
+     * blocking Swarm API declares. The failure is rethrown as a new exception of the same kind, so that the
+     * waiter's stack shows up, and callers can still tell a {@link SwarmUnavailableException} apart.
+     */
+    static <V> V await(CompletableFuture<V> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for Swarm");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SwarmUnavailableException) {
+                throw new SwarmUnavailableException(cause.getMessage(), cause);
+            }
+            if (cause instanceof IOException) throw new IOException(cause.getMessage(), cause);
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IOException(cause);
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.salesforce.slack.swarm.client;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Timeouts and limits protecting the app when Swarm degrades.
+ * <p>
+ * Slack expects every request to be acked within 3 seconds, so calls made while handling a Slack request get
+ * {@code interactiveTimeoutMillis} for all attempts together, leaving time to render and ack. Calls made by
+ * background jobs, such as the review sync, can wait longer.
+ */
+@Data
+@Builder
+public class ResilienceSettings {
+
+    @Builder.Default
+    private long connectTimeoutMillis = 1000;
+    @Builder.Default
+    private long interactiveTimeoutMillis = 2000;
+    @Builder.Default
+    private long backgroundTimeoutMillis = 10000;
+
+    @Builder.Default
+    private int maxConcurrentCalls = 16;
+    @Builder.Default
+    private long bulkheadWaitMillis = 50;
+    @Builder.Default
+    private int maxIdleConnections = 8;
+
+    @Builder.Default
+    private int circuitFailureThreshold = 5;
+    @Builder.Default
+    private long circuitOpenMillis = 30000;
+
+    @Builder.Default
+    private int maxAttempts = 3;
+    @Builder.Default
+    private long retryBackoffMillis = 100;
+    @Builder.Default
+    private double retryBudgetRatio = 0.2;
+    @Builder.Default
+    private int minRetriesPerSecond = 1;
+
+}
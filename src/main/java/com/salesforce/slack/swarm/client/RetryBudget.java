@@ -0,0 +1,51 @@
+package com.salesforce.slack.swarm.client;
+
+import com.salesforce.slack.swarm.metrics.Metrics;
+
+/**
+ * Caps retries to a fraction of recent requests (plus a small floor), so that retries cannot multiply the load
+ * on Swarm while it is struggling.
+ */
+public class RetryBudget {
+
+    private static final long WINDOW_MILLIS = 10_000;
+
+    private final double ratio;
+    private final int minRetriesPerWindow;
+
+    private long windowStart = System.currentTimeMillis();
+    private long requests;
+    private long retries;
+
+    private final Metrics.Counter exhausted = Metrics.counter("swarm_retry_budget_exhausted_total");
+
+    public RetryBudget(double ratio, int minRetriesPerSecond) {
+        this.ratio = ratio;
+        this.minRetriesPerWindow = (int) (minRetriesPerSecond * WINDOW_MILLIS / 1000);
+    }
+
+    public synchronized void onRequest() {
+        roll();
+        requests++;
+    }
+
+    public synchronized boolean tryRetry() {
+        roll();
+        if (retries < minRetriesPerWindow + ratio * requests) {
+            retries++;
+            return true;
+        }
+        exhausted.inc();
+        return false;
+    }
+
+    private void roll() {
+        long now = System.currentTimeMillis();
+        if (now - windowStart >= WINDOW_MILLIS) {
+            windowStart = now;
+            requests = 0;
+            retries = 0;
+        }
+    }
+
+}
@@ -0,0 +1,173 @@
+package com.salesforce.slack.swarm.client;
+
+import com.salesforce.slack.swarm.client.SwarmClient.ReviewState;
+import com.salesforce.slack.swarm.metrics.Metrics;
+import com.salesforce.slack.swarm.model.Review;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Moves many reviews to a new state at once, e.g. when a reviewer approves a selection of reviews from Slack.
+ * <p>
+ * Every review is changed with its own Swarm call, but no more than {@code maxConcurrent} of them run at a time,
+ * over all callers, so a large selection neither takes one round trip per review nor fills the Swarm bulkhead that
+ * interactive reads need. The outcome of all the changes is reported together.
+ * <p>
+ * Swarm is written to with the app's own account, as there are no credentials of the user who asked for the change.
+ * Every change is therefore checked on their behalf first: the review is read from Swarm right before the write,
+ * and the change is refused unless their Swarm user is one of its required reviewers, the reviewers whose vote
+ * Swarm counts, and not its author; an optional reviewer cannot approve with the app's authority. Swarm offers no
+ * conditional update, so a reviewer removed between that read and the write still gets the change. As Swarm records
+ * the app's account as the actor, each change is followed by a review comment naming the Slack user and Swarm user
+ * it was made for, and logged.
+ */
+@Slf4j
+public class ReviewStateWriter {
+
+    /**
+     * The reviews a bulk change succeeded for, and why it failed for the others.
+     */
+    public static final class Outcome {
+        private final List<Review> changed;
+        private final Map<String, String> failed;
+
+        private Outcome(List<Review> changed, Map<String, String> failed) {
+            this.changed = changed;
+            this.failed = failed;
+        }
+
+        public List<Review> getChanged() {
+            return changed;
+        }
+
+        /**
+         * @return the reason by review number, in the order the reviews were given
+         */
+        public Map<String, String> getFailed() {
+            return failed;
+        }
+    }
+
+    /**
+     * A change the acting user may not make; its message is shown to them.
+     */
+    static final class RefusedException extends Exception {
+        RefusedException(String message) {
+            super(message);
+        }
+    }
+
+    private final SwarmClient swarm;
+    private final Executor executor;
+    private final Semaphore permits;
+
+    private final Metrics.Timer duration = Metrics.timer("swarm_bulk_state_change_duration");
+
+    public ReviewStateWriter(SwarmClient swarm, Executor executor, int maxConcurrent) {
+        this.swarm = swarm;
+        this.executor = executor;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Starts changing the state of the reviews; the returned future completes, never exceptionally, once every
+     * change has succeeded, failed or been refused.
+     *
+     * @param slackUser the Slack user who asked for the changes, for the audit trail
+     * @param swarmUser the Swarm user the changes are made for, who must be a required reviewer of every review
+     */
+    public CompletableFuture<Outcome> changeAll(Collection<String> numbers, ReviewState state, String slackUser,
+                                                String swarmUser) {
+        long start = System.nanoTime();
+        Map<String, CompletableFuture<Review>> changes = new LinkedHashMap<>();
+        numbers.forEach(number -> changes.computeIfAbsent(number, key -> change(key, state, slackUser, swarmUser)));
+        return CompletableFuture.allOf(changes.values().toArray(new CompletableFuture[0]))
+                .handle((ignored, failure) -> {
+                    List<Review> changed = new ArrayList<>();
+                    Map<String, String> failed = new LinkedHashMap<>();
+                    changes.forEach((number, change) -> {
+                        try {
+                            changed.add(change.join());
+                        } catch (RuntimeException e) {
+                            failed.put(number, reason(e.getCause() != null ? e.getCause() : e));
+                        }
+                    });
+                    duration.recordSince(start);
+                    return new Outcome(Collections.unmodifiableList(changed), Collections.unmodifiableMap(failed));
+                });
+    }
+
+    private CompletableFuture<Review> change(String number, ReviewState state, String slackUser, String swarmUser) {
+        CompletableFuture<Review> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            String outcome = "error";
+            try {
+                permits.acquire();
+                try {
+                    checkReviewer(swarm.getReviewInBackground(number), swarmUser);
+                    Review changed = swarm.changeReviewState(number, state);
+                    outcome = "ok";
+                    log.info("Review {} moved to {} for Swarm user {}, asked for by Slack user {}", number,
+                            state.getValue(), swarmUser, slackUser);
+                    audit(number, state, slackUser, swarmUser);
+                    future.complete(changed);
+                } finally {
+                    permits.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.completeExceptionally(e);
+            } catch (RefusedException e) {
+                outcome = "refused";
+                log.info("Refused to change the state of review {} to {} for {}: {}", number, state, swarmUser,
+                        e.getMessage());
+                future.completeExceptionally(e);
+            } catch (Exception e) {
+                log.warn("Could not change the state of review {} to {}", number, state, e);
+                future.completeExceptionally(e);
+            } finally {
+                Metrics.counter(Metrics.withLabel(Metrics.withLabel("swarm_review_state_changes_total",
+                        "state", state.getValue()), "outcome", outcome)).inc();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * The change is made already, so a comment that cannot be added is logged rather than failing it.
+     */
+    private void audit(String number, ReviewState state, String slackUser, String swarmUser) {
+        try {
+            swarm.addReviewComment(number, (state == ReviewState.APPROVED ? "Approved" : "Declined")
+                    + " from Slack for @" + swarmUser + " (Slack user " + slackUser + ")");
+        } catch (Exception e) {
+            log.warn("Could not comment on review {} that it was moved to {} for {} ({})", number,
+                    state.getValue(), swarmUser, slackUser, e);
+        }
+    }
+
+    static void checkReviewer(Review review, String swarmUser) throws RefusedException {
+        if (review == null) throw new RefusedException("review not found");
+        if (swarmUser.equals(review.getAuthor())) throw new RefusedException("you are its author");
+        Object participant = review.getParticipants() != null ? review.getParticipants().get(swarmUser) : null;
+        if (participant == null) throw new RefusedException("you are not one of its reviewers");
+        if (!ReviewTypeAdapter.isRequired(participant)) {
+            throw new RefusedException("only its required reviewers can approve or decline it");
+        }
+    }
+
+    private static String reason(Throwable failure) {
+        if (failure instanceof SwarmUnavailableException) return "Swarm is unavailable";
+        return failure.getMessage() != null ? failure.getMessage() : failure.getClass().getSimpleName();
+    }
+
+}
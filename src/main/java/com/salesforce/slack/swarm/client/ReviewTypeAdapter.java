@@ -0,0 +1,252 @@
+package com.salesforce.slack.swarm.client;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.salesforce.slack.swarm.model.Review;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming decoder for Swarm reviews that reads only the fields the app renders and skips everything else
+ * without materializing it.
+ * <p>
+ * The reflective path builds a full map tree for {@code participants} (votes, required flags, ...) although only
+ * the participant names are shown, and whether a participant is a required reviewer, which approving from Slack
+ * checks; here each participant maps to {@link #REQUIRED} or an empty map. Values of an unexpected shape, such as
+ * {@code commitStatus} sent as an object, are skipped instead of failing the whole response.
+ */
+public class ReviewTypeAdapter extends TypeAdapter<Review> {
+
+    /**
+     * The details of a required reviewer, shared by all of them.
+     */
+    public static final Map<String, Object> REQUIRED = Collections.singletonMap("required", true);
+
+    /**
+     * @param details the value a participant maps to, as decoded here or by reflective Gson
+     */
+    public static boolean isRequired(Object details) {
+        if (!(details instanceof Map)) return false;
+        Object required = ((Map<?, ?>) details).get("required");
+        if (required instanceof Boolean) return (Boolean) required;
+        if (required == null) return false;
+        String value = required.toString();
+        return !value.isEmpty() && !"0".equals(value) && !"false".equals(value);
+    }
+
+    @Override
+    public Review read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        Review review = new Review();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    review.setId(in.nextLong());
+                    break;
+                case "author":
+                    review.setAuthor(in.nextString());
+                    break;
+                case "changes":
+                    review.setChanges(readInts(in));
+                    break;
+                case "comments":
+                    review.setComments(readInts(in));
+                    break;
+                case "commits":
+                    review.setCommits(readInts(in));
+                    break;
+                case "commitStatus":
+                    review.setCommitStatus(readStrings(in));
+                    break;
+                case "deployStatus":
+                    review.setDeployStatus(in.nextString());
+                    break;
+                case "description":
+                    review.setDescription(in.nextString());
+                    break;
+                case "participants":
+                    review.setParticipants(readParticipants(in));
+                    break;
+                case "state":
+                    review.setState(in.nextString());
+                    break;
+                case "stateLabel":
+                    review.setStateLabel(in.nextString());
+                    break;
+                case "testStatus":
+                    review.setTestStatus(in.nextString());
+                    break;
+                case "type":
+                    review.setType(in.nextString());
+                    break;
+                case "pending":
+                    if (in.peek() == JsonToken.BOOLEAN) {
+                        review.setPending(in.nextBoolean());
+                    } else {
+                        in.skipValue();
+                    }
+                    break;
+                case "created":
+                    review.setCreated(in.nextLong());
+                    break;
+                case "updated":
+                    review.setUpdated(in.nextLong());
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return review;
+    }
+
+    @Override
+    public void write(JsonWriter out, Review review) throws IOException {
+        if (review == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("id").value(review.getId());
+        out.name("author").value(review.getAuthor());
+        writeInts(out.name("changes"), review.getChanges());
+        writeInts(out.name("comments"), review.getComments());
+        writeInts(out.name("commits"), review.getCommits());
+        out.name("commitStatus");
+        if (review.getCommitStatus() != null) {
+            out.beginArray();
+            for (String status : review.getCommitStatus()) out.value(status);
+            out.endArray();
+        } else {
+            out.nullValue();
+        }
+        out.name("deployStatus").value(review.getDeployStatus());
+        out.name("description").value(review.getDescription());
+        out.name("participants");
+        if (review.getParticipants() != null) {
+            out.beginObject();
+            for (Map.Entry<String, Object> participant : review.getParticipants().entrySet()) {
+                out.name(participant.getKey()).beginObject();
+                if (isRequired(participant.getValue())) out.name("required").value(true);
+                out.endObject();
+            }
+            out.endObject();
+        } else {
+            out.nullValue();
+        }
+        out.name("state").value(review.getState());
+        out.name("stateLabel").value(review.getStateLabel());
+        out.name("testStatus").value(review.getTestStatus());
+        out.name("type").value(review.getType());
+        out.name("pending").value(review.getPending());
+        out.name("created").value(review.getCreated());
+        out.name("updated").value(review.getUpdated());
+        out.endObject();
+    }
+
+    private static List<Integer> readInts(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            in.skipValue();
+            return null;
+        }
+        List<Integer> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.NUMBER) {
+                values.add(in.nextInt());
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endArray();
+        return values;
+    }
+
+    private static List<String> readStrings(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            in.skipValue();
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.STRING) {
+                values.add(in.nextString());
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endArray();
+        return values;
+    }
+
+    private static Map<String, Object> readParticipants(JsonReader in) throws IOException {
+        // Swarm (PHP) encodes an empty participant map as []
+        if (in.peek() != JsonToken.BEGIN_OBJECT) {
+            in.skipValue();
+            return Collections.emptyMap();
+        }
+        Map<String, Object> participants = new LinkedHashMap<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            participants.put(name, readRequired(in) ? REQUIRED : Collections.emptyMap());
+        }
+        in.endObject();
+        return participants;
+    }
+
+    /**
+     * Swarm sends {@code "required": true} for an individual required reviewer and {@code "required": "1"} for one
+     * of a group that needs one vote; an optional reviewer has no {@code required}.
+     */
+    private static boolean readRequired(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_OBJECT) {
+            in.skipValue();
+            return false;
+        }
+        boolean required = false;
+        in.beginObject();
+        while (in.hasNext()) {
+            if (!"required".equals(in.nextName())) {
+                in.skipValue();
+            } else if (in.peek() == JsonToken.BOOLEAN) {
+                required = in.nextBoolean();
+            } else if (in.peek() == JsonToken.STRING || in.peek() == JsonToken.NUMBER) {
+                String value = in.nextString();
+                required = !value.isEmpty() && !"0".equals(value) && !"false".equals(value);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return required;
+    }
+
+    private static void writeInts(JsonWriter out, List<Integer> values) throws IOException {
+        if (values == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (Integer value : values) out.value(value);
+        out.endArray();
+    }
+
+}
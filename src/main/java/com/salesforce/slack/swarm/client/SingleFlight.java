@@ -0,0 +1,77 @@
+package com.salesforce.slack.swarm.client;
+
+import com.salesforce.slack.swarm.metrics.Metrics;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces concurrent calls for the same key: the first caller performs the call, everyone who arrives while it
+ * is in flight waits for and shares its result (or its failure). Nothing is remembered once the call completes.
+ */
+public class SingleFlight<K, V> {
+
+    @FunctionalInterface
+    public interface Loader<V> {
+        V load() throws IOException;
+    }
+
+    private static final class Call<V> {
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger();
+    }
+
+    private final ConcurrentHashMap<K, Call<V>> calls = new ConcurrentHashMap<>();
+    private final AtomicInteger totalWaiters = new AtomicInteger();
+    private final Metrics.Counter executed;
+    private final Metrics.Counter coalesced;
+
+    public SingleFlight(String name) {
+        this.executed = Metrics.counter(name + "_single_flight_calls_total");
+        this.coalesced = Metrics.counter(name + "_single_flight_coalesced_total");
+        Metrics.gauge(name + "_single_flight_in_flight", calls::size);
+        Metrics.gauge(name + "_single_flight_waiters", totalWaiters::get);
+    }
+
+    public V execute(K key, Loader<V> loader) throws IOException {
+        Call<V> call = new Call<>();
+        Call<V> existing = calls.putIfAbsent(key, call);
+        if (existing != null) {
+            coalesced.inc();
+            return await(existing);
+        }
+        executed.inc();
+        try {
+            V value = loader.load();
+            call.result.complete(value);
+            return value;
+        } catch (IOException | RuntimeException e) {
+            call.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+
+    /**
+     * Number of callers currently waiting on the in-flight call for the key, not counting the one performing it.
+     */
+    public int getWaiters(K key) {
+        Call<V> call = calls.get(key);
+        return call != null ? call.waiters.get() : 0;
+    }
+
+    private V await(Call<V> call) throws IOException {
+        call.waiters.incrementAndGet();
+        totalWaiters.incrementAndGet();
+        try {
+            return Futures.await(call.result);
+        } finally {
+            call.waiters.decrementAndGet();
+            totalWaiters.decrementAndGet();
+        }
+    }
+
+}
@@ -0,0 +1,454 @@
+package com.salesforce.slack.swarm.client;
+
+import com.salesforce.slack.swarm.metrics.Metrics;
+import com.salesforce.slack.swarm.model.Review;
+import com.salesforce.slack.swarm.model.ReviewDetails;
+import com.salesforce.slack.swarm.model.ReviewsData;
+import com.salesforce.slack.swarm.model.User;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.Credentials;
+import okhttp3.Dispatcher;
+import okhttp3.FormBody;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blocking access to the Swarm REST API.
+ */
+@Slf4j
+public class SwarmClient {
+
+    public static final String DEFAULT_BASE_URL = "https://swarm.soma.salesforce.com";
+    public static final String AUTHORIZATION_HEADER = "Authorization";
+    private static final int REVIEWS_BY_USER_MAX = 5;
+
+    public enum ReviewRole {
+        AUTHOR("author"),
+        PARTICIPANT("participants");
+
+        private final String queryParameter;
+
+        ReviewRole(String queryParameter) {
+            this.queryParameter = queryParameter;
+        }
+
+        String getQueryParameter() {
+            return this.queryParameter;
+        }
+    }
+
+    /**
+     * States a review can be moved to from Slack.
+     */
+    public enum ReviewState {
+        APPROVED("approved"),
+        REJECTED("rejected");
+
+        private final String value;
+
+        ReviewState(String value) {
+            this.value = value;
+        }
+
+        String getValue() {
+            return this.value;
+        }
+    }
+
+    /**
+     * Calls made while a Slack request waits for its ack, or by background jobs.
+     */
+    private enum Endpoint {
+        INTERACTIVE, BACKGROUND
+    }
+
+    /**
+     * Thrown by a decoder for an answer from Swarm that is neither a result nor worth retrying, e.g. a
+     * {@code 403}; Swarm did answer, so it does not count against the circuit breaker.
+     */
+    private static final class UnexpectedResponseException extends IOException {
+        private UnexpectedResponseException(okhttp3.Response response) {
+            super("Swarm responded with HTTP " + response.code() + " to " + response.request().url());
+        }
+    }
+
+    @FunctionalInterface
+    private interface ResponseDecoder<T> {
+        T decode(okhttp3.Response response) throws IOException;
+    }
+
+    private final String reviewUrl;
+    private final String reviewsUrl;
+    private final String usersUrl;
+    private final String commentsUrl;
+    private final ResilienceSettings settings;
+    private final String username;
+    private final String password;
+    private volatile OkHttpClient restClient;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final RetryBudget retryBudget;
+    private final Metrics.Counter bulkheadRejections = Metrics.counter("swarm_bulkhead_rejections_total");
+    private final Metrics.Counter retries = Metrics.counter("swarm_retries_total");
+    private final SingleFlight<String, Review> reviewCalls = new SingleFlight<>("swarm_review");
+    private final SingleFlight<String, ReviewsData> reviewListCalls = new SingleFlight<>("swarm_review_list");
+    private final SingleFlight<String, List<User>> userCalls = new SingleFlight<>("swarm_user");
+
+    public SwarmClient(String username, String password) {
+        this(DEFAULT_BASE_URL, username, password, ResilienceSettings.builder().build());
+    }
+
+    /**
+     * @param baseUrl scheme, host and port of the Swarm server, e.g. {@link #DEFAULT_BASE_URL}
+     */
+    public SwarmClient(String baseUrl, String username, String password, ResilienceSettings settings) {
+        String apiUrl = StringUtils.removeEnd(baseUrl, "/") + "/api/v9/";
+        this.reviewUrl = apiUrl + "reviews/";
+        this.reviewsUrl = apiUrl + "reviews";
+        this.usersUrl = apiUrl + "users";
+        this.commentsUrl = apiUrl + "comments";
+        this.settings = settings;
+        this.username = username;
+        this.password = password;
+        this.bulkhead = new Semaphore(settings.getMaxConcurrentCalls());
+        this.circuitBreaker = new CircuitBreaker("swarm", settings.getCircuitFailureThreshold(),
+                settings.getCircuitOpenMillis());
+        this.retryBudget = new RetryBudget(settings.getRetryBudgetRatio(), settings.getMinRetriesPerSecond());
+        Metrics.gauge("swarm_bulkhead_in_use", () -> settings.getMaxConcurrentCalls() - bulkhead.availablePermits());
+    }
+
+    /**
+     * Builds the HTTP client, which otherwise happens on the first call; loading OkHttp and setting up TLS takes a
+     * noticeable part of the app's startup, so it can be done off the startup path.
+     */
+    public void warmUp() {
+        restClient();
+    }
+
+    /**
+     * @return the URL a review number is appended to, to link to the review
+     */
+    public String getReviewUrl() {
+        return reviewUrl;
+    }
+
+    /**
+     * Concurrent calls for the same review share one HTTP call and one decoded {@link Review}, which callers
+     * must therefore treat as read-only. The same applies to review lists and users.
+     */
+    public Review getReview(String number) throws IOException {
+        return reviewCalls.execute(reviewUrl + number, () -> fetchReview(number, Endpoint.INTERACTIVE));
+    }
+
+    /**
+     * Same as {@link #getReview(String)}, for background jobs, with the longer background timeout.
+     */
+    public Review getReviewInBackground(String number) throws IOException {
+        return reviewCalls.execute(reviewUrl + number, () -> fetchReview(number, Endpoint.BACKGROUND));
+    }
+
+    public ReviewsData getReviewsByAuthor(String user) throws IOException {
+        String url = reviewListUrl(ReviewRole.AUTHOR, user, REVIEWS_BY_USER_MAX, null);
+        return reviewListCalls.execute(url, () -> fetchReviews(url, Endpoint.INTERACTIVE));
+    }
+
+    public ReviewsData getReviewsByParticipant(String user) throws IOException {
+        String url = reviewListUrl(ReviewRole.PARTICIPANT, user, REVIEWS_BY_USER_MAX, null);
+        return reviewListCalls.execute(url, () -> fetchReviews(url, Endpoint.INTERACTIVE));
+    }
+
+    /**
+     * Same as {@link #getReviews(ReviewRole, String, int, Integer)}, for a user waiting on the page, with the
+     * interactive timeout.
+     */
+    public ReviewsData getReviewPage(ReviewRole role, String user, int max, Integer after) throws IOException {
+        String pageUrl = reviewListUrl(role, user, max, after);
+        return reviewListCalls.execute(pageUrl, () -> fetchReviews(pageUrl, Endpoint.INTERACTIVE));
+    }
+
+    /**
+     * Fetches one page of the reviews a user is involved in, newest first; pass the previous page's
+     * {@code lastSeen} as {@code after} to continue paging, or {@code null} for the first page. Meant for
+     * background jobs, so it gets the longer background timeout.
+     */
+    public ReviewsData getReviews(ReviewRole role, String user, int max, Integer after) throws IOException {
+        String pageUrl = reviewListUrl(role, user, max, after);
+        return reviewListCalls.execute(pageUrl, () -> fetchReviews(pageUrl, Endpoint.BACKGROUND));
+    }
+
+    /**
+     * Moves a review to another state, as the Swarm user the client is authenticated as. Setting a state is
+     * idempotent, so the call is retried like a read; it gets the background timeout, as it runs after Slack has
+     * been acked.
+     *
+     * @return the review as Swarm has it after the change
+     * @throws IOException also when Swarm refuses the change, e.g. for lack of permission
+     */
+    public Review changeReviewState(String number, ReviewState state) throws IOException {
+        Request request = new Request.Builder()
+                .url(reviewUrl + number + "/state/")
+                .patch(new FormBody.Builder().add("state", state.getValue()).build())
+                .build();
+        Review review = makeApiCall(request, Endpoint.BACKGROUND, response -> {
+            ReviewDetails reviewDetails = null;
+            ResponseBody body = response.body();
+            if (response.isSuccessful() && body != null) {
+                reviewDetails = SwarmJson.GSON.fromJson(body.charStream(), ReviewDetails.class);
+            }
+            return reviewDetails != null ? reviewDetails.getReview() : null;
+        });
+        if (review == null) {
+            throw new IOException("Swarm did not change the state of review " + number);
+        }
+        return review;
+    }
+
+    /**
+     * Comments on a review, as the Swarm user the client is authenticated as. Adding a comment is not idempotent,
+     * so the call is made once and not retried.
+     */
+    public void addReviewComment(String number, String comment) throws IOException {
+        Request request = new Request.Builder()
+                .url(commentsUrl)
+                .post(new FormBody.Builder()
+                        .add("topic", "reviews/" + number)
+                        .add("body", comment)
+                        .build())
+                .build();
+        makeApiCall(request, Endpoint.BACKGROUND, false, response -> {
+            if (!response.isSuccessful()) throw new UnexpectedResponseException(response);
+            return null;
+        });
+    }
+
+    public User getUser(String username) throws IOException {
+        List<User> users = getUsers(Collections.singletonList(username));
+        return users.isEmpty() ? null : users.get(0);
+    }
+
+    /**
+     * Looks up several users with one {@code users=a,b,c} call; users unknown to Swarm are simply absent.
+     */
+    public List<User> getUsers(Collection<String> usernames) throws IOException {
+        String url = HttpUrl.get(usersUrl).newBuilder()
+                .addQueryParameter("users", String.join(",", usernames))
+                .build().toString();
+        return userCalls.execute(url, () -> fetchUsers(url));
+    }
+
+    private String reviewListUrl(ReviewRole role, String user, int max, Integer after) {
+        HttpUrl.Builder url = HttpUrl.get(reviewsUrl).newBuilder()
+                .addQueryParameter("max", String.valueOf(max))
+                .addQueryParameter(role.getQueryParameter(), user);
+        if (after != null) {
+            url.addQueryParameter("after", String.valueOf(after));
+        }
+        return url.build().toString();
+    }
+
+    /**
+     * @return the review, or {@code null} only if Swarm answers {@code 404}; other failures are thrown, so that
+     * callers do not mistake them for a deleted review
+     */
+    private Review fetchReview(String number, Endpoint endpoint) throws IOException {
+        return makeApiGetCall(reviewUrl + number, endpoint, response -> {
+            if (response.code() == 404) return null;
+            if (!response.isSuccessful()) throw new UnexpectedResponseException(response);
+            ReviewDetails reviewDetails = null;
+            ResponseBody body = response.body();
+            if (body != null) {
+                reviewDetails = SwarmJson.GSON.fromJson(body.charStream(), ReviewDetails.class);
+            }
+            return reviewDetails != null ? reviewDetails.getReview() : null;
+        });
+    }
+
+    private List<User> fetchUsers(String url) throws IOException {
+        return makeApiGetCall(url, Endpoint.INTERACTIVE, response -> {
+            User[] users = null;
+            ResponseBody body = response.body();
+            if (response.isSuccessful() && body != null) {
+                users = SwarmJson.GSON.fromJson(body.charStream(), User[].class);
+            }
+            return ArrayUtils.isNotEmpty(users) ? Arrays.asList(users) : Collections.<User>emptyList();
+        });
+    }
+
+    /**
+     * @throws IOException for any answer but a review list, so that a failed page is never taken for an empty one
+     */
+    private ReviewsData fetchReviews(String url, Endpoint endpoint) throws IOException {
+        return makeApiGetCall(url, endpoint, response -> {
+            if (!response.isSuccessful()) throw new UnexpectedResponseException(response);
+            ResponseBody body = response.body();
+            ReviewsData reviewsData = body != null
+                    ? SwarmJson.GSON.fromJson(body.charStream(), ReviewsData.class)
+                    : null;
+            if (reviewsData == null) throw new IOException("Swarm sent no reviews for " + url);
+            return reviewsData;
+        });
+    }
+
+    private <T> T makeApiGetCall(String url, Endpoint endpoint, ResponseDecoder<T> decoder) throws IOException {
+        return makeApiCall(new Request.Builder().url(url).build(), endpoint, decoder);
+    }
+
+    /**
+     * Performs a call guarded by the bulkhead and circuit breaker. Connection failures and 5xx/429 responses are
+     * retried with jittered exponential backoff while the endpoint's time budget and the retry budget allow.
+     * The decoder runs before the response is closed, so reading the body is covered by the same timeout.
+     */
+    private <T> T makeApiCall(Request request, Endpoint endpoint, ResponseDecoder<T> decoder) throws IOException {
+        return makeApiCall(request, endpoint, true, decoder);
+    }
+
+    /**
+     * @param idempotent whether the call may be retried; one that is not is made once
+     */
+    private <T> T makeApiCall(Request request, Endpoint endpoint, boolean idempotent, ResponseDecoder<T> decoder)
+            throws IOException {
+        acquireBulkhead();
+        try {
+            long permit = circuitBreaker.tryAcquire();
+            if (permit == CircuitBreaker.REJECTED) {
+                throw new SwarmUnavailableException("Swarm circuit breaker is open");
+            }
+            return executeWithRetries(request, endpoint, idempotent ? settings.getMaxAttempts() : 1, permit, decoder);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * Reports the outcome to the circuit breaker exactly once, however the call ends, so that a decoder failing
+     * with a runtime exception or an interrupted backoff cannot leave a half-open probe in flight forever.
+     *
+     * @param permit what {@link CircuitBreaker#tryAcquire()} allowed the call with
+     */
+    private <T> T executeWithRetries(Request request, Endpoint endpoint, int maxAttempts, long permit,
+                                     ResponseDecoder<T> decoder) throws IOException {
+        long timeoutMillis = endpoint == Endpoint.INTERACTIVE
+                ? settings.getInteractiveTimeoutMillis()
+                : settings.getBackgroundTimeoutMillis();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        retryBudget.onRequest();
+        boolean succeeded = false;
+        try {
+            for (int attempt = 1; ; attempt++) {
+                Call call = restClient().newCall(request);
+                call.timeout().timeout(Math.max(deadline - System.currentTimeMillis(), 1), TimeUnit.MILLISECONDS);
+                IOException failure;
+                try (okhttp3.Response response = call.execute()) {
+                    if (!isRetryable(response.code())) {
+                        T result = decoder.decode(response);
+                        succeeded = true;
+                        return result;
+                    }
+                    failure = new IOException("Swarm responded with HTTP " + response.code());
+                } catch (UnexpectedResponseException e) {
+                    // Swarm is up, the request is what failed
+                    succeeded = true;
+                    throw e;
+                } catch (IOException e) {
+                    failure = e;
+                }
+                long backoff = backoffMillis(attempt);
+                if (attempt >= maxAttempts
+                        || System.currentTimeMillis() + backoff >= deadline
+                        || !retryBudget.tryRetry()) {
+                    throw failure;
+                }
+                retries.inc();
+                log.debug("Retrying {} in {} ms after: {}", request.url(), backoff, failure.getMessage());
+                sleep(backoff);
+            }
+        } finally {
+            if (succeeded) {
+                circuitBreaker.onSuccess(permit);
+            } else {
+                circuitBreaker.onFailure(permit);
+            }
+        }
+    }
+
+    CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private static boolean isRetryable(int code) {
+        return code == 429 || code >= 500;
+    }
+
+    private long backoffMillis(int attempt) {
+        long ceiling = settings.getRetryBackoffMillis() << (attempt - 1);
+        return ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+    }
+
+    private void acquireBulkhead() throws IOException {
+        try {
+            if (!bulkhead.tryAcquire(settings.getBulkheadWaitMillis(), TimeUnit.MILLISECONDS)) {
+                bulkheadRejections.inc();
+                throw new SwarmUnavailableException("Too many concurrent Swarm calls");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a Swarm call slot");
+        }
+    }
+
+    private static void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry a Swarm call");
+        }
+    }
+
+    private OkHttpClient restClient() {
+        OkHttpClient client = restClient;
+        if (client == null) {
+            synchronized (this) {
+                client = restClient;
+                if (client == null) {
+                    client = createAuthenticatedClient(username, password, settings);
+                    restClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    private static OkHttpClient createAuthenticatedClient(String username, String password, ResilienceSettings settings) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(settings.getMaxConcurrentCalls());
+        dispatcher.setMaxRequestsPerHost(settings.getMaxConcurrentCalls());
+        return new OkHttpClient.Builder()
+                .connectTimeout(settings.getConnectTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .connectionPool(new ConnectionPool(settings.getMaxIdleConnections(), 5, TimeUnit.MINUTES))
+                .dispatcher(dispatcher)
+                .eventListenerFactory(SwarmEventListener.FACTORY)
+                .addInterceptor(chain -> {
+                    String credential = Credentials.basic(username, password);
+                    Request request = chain.request().newBuilder().addHeader(AUTHORIZATION_HEADER, credential).build();
+                    return chain.proceed(request);
+                }).build();
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.salesforce.slack.swarm.client;
+
+import com.salesforce.slack.swarm.metrics.Metrics;
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+import okhttp3.Request;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+/**
+ * Records the phases of every Swarm HTTP call: DNS lookup, connect (TCP and TLS), time to first byte after the
+ * request was sent, body download and the whole call, labelled by the kind of Swarm endpoint.
+ * A new listener is created per call, so the timestamps need no synchronization.
+ */
+public class SwarmEventListener extends EventListener {
+
+    public static final EventListener.Factory FACTORY = call -> new SwarmEventListener();
+
+    private static final Metrics.UpDownCounter IN_FLIGHT = Metrics.upDownCounter("swarm_http_in_flight");
+
+    private String endpoint;
+    private long callStart;
+    private long dnsStart;
+    private long connectStart;
+    private long requestSent;
+    private long bodyStart;
+
+    @Override
+    public void callStart(Call call) {
+        callStart = System.nanoTime();
+        endpoint = endpointOf(call.request());
+        IN_FLIGHT.inc();
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        timer("swarm_http_dns_duration").recordSince(dnsStart);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectStart = System.nanoTime();
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        timer("swarm_http_connect_duration").recordSince(connectStart);
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol,
+                              IOException ioe) {
+        Metrics.counter(labelled("swarm_http_connect_failures_total")).inc();
+    }
+
+    @Override
+    public void requestHeadersEnd(Call call, Request request) {
+        requestSent = System.nanoTime();
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        requestSent = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        if (requestSent > 0) timer("swarm_http_ttfb").recordSince(requestSent);
+    }
+
+    @Override
+    public void responseBodyStart(Call call) {
+        bodyStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        timer("swarm_http_body_duration").recordSince(bodyStart);
+        Metrics.counter(labelled("swarm_http_response_bytes_total")).add(byteCount);
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        finish("ok");
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        finish("failed");
+    }
+
+    private void finish(String outcome) {
+        IN_FLIGHT.dec();
+        timer("swarm_http_call_duration").recordSince(callStart);
+        Metrics.counter(Metrics.withLabel(labelled("swarm_http_calls_total"), "outcome", outcome)).inc();
+    }
+
+    private Metrics.Timer timer(String name) {
+        return Metrics.timer(labelled(name));
+    }
+
+    private String labelled(String name) {
+        return Metrics.withLabel(name, "endpoint", endpoint);
+    }
+
+    private static String endpointOf(Request request) {
+        List<String> segments = request.url().pathSegments();
+        String last = segments.isEmpty() ? "" : segments.get(segments.size() - 1);
+        if ("users".equals(last)) return "users";
+        if ("reviews".equals(last)) return "reviews";
+        return segments.contains("reviews") ? "review" : "other";
+    }
+
+}
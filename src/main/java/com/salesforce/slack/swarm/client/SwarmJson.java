@@ -0,0 +1,40 @@
+package com.salesforce.slack.swarm.client;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.salesforce.slack.swarm.model.Review;
+import com.salesforce.slack.swarm.model.ReviewDetails;
+import com.salesforce.slack.swarm.model.ReviewsData;
+import com.salesforce.slack.swarm.model.User;
+
+/**
+ * Gson instances used to decode Swarm responses.
+ */
+public final class SwarmJson {
+
+    /**
+     * Decodes reviews with the streaming {@link ReviewTypeAdapter}; everything else stays reflective.
+     */
+    public static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(Review.class, new ReviewTypeAdapter())
+            .create();
+
+    /**
+     * Plain reflective Gson the app used originally, kept as the baseline for decoding benchmarks.
+     */
+    public static final Gson REFLECTIVE_GSON = new Gson();
+
+    private SwarmJson() {
+    }
+
+    /**
+     * Builds the type adapters of all Swarm responses, which {@link #GSON} otherwise builds, reflectively, while the
+     * first response of each type waits to be decoded.
+     */
+    public static void warmUp() {
+        GSON.getAdapter(ReviewsData.class);
+        GSON.getAdapter(ReviewDetails.class);
+        GSON.getAdapter(User[].class);
+    }
+
+}
@@ -0,0 +1,18 @@
+package com.salesforce.slack.swarm.client;
+
+import java.io.IOException;
+
+/**
+ * Thrown without calling Swarm when the circuit breaker is open or too many calls are already in flight.
+ */
+public class SwarmUnavailableException extends IOException {
+
+    public SwarmUnavailableException(String message) {
+        super(message);
+    }
+
+    public SwarmUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
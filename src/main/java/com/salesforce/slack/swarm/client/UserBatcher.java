@@ -0,0 +1,127 @@
+package com.salesforce.slack.swarm.client;
+
+import com.salesforce.slack.swarm.metrics.Metrics;
+import com.salesforce.slack.swarm.model.User;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-batches user lookups: names requested within a short window, or until the batch is full, are resolved
+ * with a single {@code users=a,b,c} call and the response is split back out to each waiting caller.
+ * <p>
+ * A single timer thread only closes batches; the Swarm calls run on the flush executor, so a slow Swarm delays the
+ * batches waiting for it but never the closing of the next window.
+ */
+@Slf4j
+public class UserBatcher {
+
+    private final SwarmClient swarm;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+    private final Executor flushExecutor;
+    private final Object lock = new Object();
+    private Map<String, CompletableFuture<User>> pending = new HashMap<>();
+
+    private final Metrics.Counter batches = Metrics.counter("swarm_user_batches_total");
+    private final Metrics.Counter batchedUsers = Metrics.counter("swarm_user_batched_lookups_total");
+
+    /**
+     * @param flushExecutor runs the Swarm calls of full and timed-out batches
+     */
+    public UserBatcher(SwarmClient swarm, long windowMillis, int maxBatchSize, Executor flushExecutor) {
+        this.swarm = swarm;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.flushExecutor = flushExecutor;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                new BasicThreadFactory.Builder().namingPattern("swarm-user-batcher-%d").daemon(true).build());
+    }
+
+    /**
+     * Resolves one user, returning {@code null} when Swarm does not know it.
+     */
+    public User resolve(String username) throws IOException {
+        return Futures.await(submit(username));
+    }
+
+    /**
+     * Resolves several users in as few Swarm calls as possible; unknown users map to {@code null}.
+     */
+    public Map<String, User> resolveAll(Collection<String> usernames) throws IOException {
+        Map<String, CompletableFuture<User>> futures = new LinkedHashMap<>();
+        usernames.forEach(username -> futures.put(username, submit(username)));
+        Map<String, User> users = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<User>> entry : futures.entrySet()) {
+            users.put(entry.getKey(), Futures.await(entry.getValue()));
+        }
+        return users;
+    }
+
+    public CompletableFuture<User> submit(String username) {
+        CompletableFuture<User> future;
+        Map<String, CompletableFuture<User>> fullBatch = null;
+        synchronized (lock) {
+            future = pending.get(username);
+            if (future != null) return future;
+
+            future = new CompletableFuture<>();
+            pending.put(username, future);
+            if (pending.size() >= maxBatchSize) {
+                fullBatch = pending;
+                pending = new HashMap<>();
+            } else if (pending.size() == 1) {
+                scheduler.schedule(() -> flushExecutor.execute(this::flushPending), windowMillis,
+                        TimeUnit.MILLISECONDS);
+            }
+        }
+        if (fullBatch != null) {
+            Map<String, CompletableFuture<User>> batch = fullBatch;
+            flushExecutor.execute(() -> flush(batch));
+        }
+        return future;
+    }
+
+    private void flushPending() {
+        Map<String, CompletableFuture<User>> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) return;
+            batch = pending;
+            pending = new HashMap<>();
+        }
+        flush(batch);
+    }
+
+    private void flush(Map<String, CompletableFuture<User>> batch) {
+        batches.inc();
+        batchedUsers.add(batch.size());
+        try {
+            List<User> users = swarm.getUsers(batch.keySet());
+            if (batch.size() == 1) {
+                batch.values().forEach(future -> future.complete(users.isEmpty() ? null : users.get(0)));
+                return;
+            }
+            Map<String, User> byName = new HashMap<>();
+            users.forEach(user -> {
+                if (user.getUsername() != null) byName.put(user.getUsername().toLowerCase(), user);
+            });
+            batch.forEach((username, future) -> future.complete(byName.get(username.toLowerCase())));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not resolve users {}", batch.keySet(), e);
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+}
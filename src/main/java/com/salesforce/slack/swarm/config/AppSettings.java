@@ -0,0 +1,37 @@
+package com.salesforce.slack.swarm.config;
+
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+/**
+ * Runtime settings resolved from environment variables, falling back to JVM system properties
+ * with the same name, so that Heroku config vars and local {@code -D} flags both work.
+ */
+public final class AppSettings {
+
+    private AppSettings() {
+    }
+
+    public static String getString(String name, String defaultValue) {
+        String value = System.getenv(name);
+        if (StringUtils.isBlank(value)) {
+            value = System.getProperty(name);
+        }
+        return StringUtils.isNotBlank(value) ? value.trim() : defaultValue;
+    }
+
+    public static boolean getBoolean(String name, boolean defaultValue) {
+        String value = getString(name, null);
+        return value != null ? BooleanUtils.toBoolean(value) : defaultValue;
+    }
+
+    public static int getInt(String name, int defaultValue) {
+        return NumberUtils.toInt(getString(name, null), defaultValue);
+    }
+
+    public static long getLong(String name, long defaultValue) {
+        return NumberUtils.toLong(getString(name, null), defaultValue);
+    }
+
+}
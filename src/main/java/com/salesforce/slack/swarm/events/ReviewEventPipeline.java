@@ -0,0 +1,129 @@
+package com.salesforce.slack.swarm.events;
+
+import com.salesforce.slack.swarm.client.SwarmClient;
+import com.salesforce.slack.swarm.metrics.Metrics;
+import com.salesforce.slack.swarm.model.Review;
+import com.salesforce.slack.swarm.store.ReviewStore;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Applies Swarm's "review changed" notifications to the {@link ReviewStore}.
+ * <p>
+ * Notifications only carry a review id and wait in a bounded queue. An id that is already waiting is not queued
+ * again, so a burst of updates to one review costs one Swarm call; an id arriving while its review is being
+ * fetched is queued anew and fetched once more. When the queue is full the notification is refused, and the
+ * sender is expected to retry later. Workers fetch the current review, update the store and report the Swarm
+ * users whose lists it is or was on, so their Home views can be refreshed.
+ */
+@Slf4j
+public class ReviewEventPipeline {
+
+    public enum Outcome {
+        QUEUED, DEDUPED, REJECTED
+    }
+
+    private final SwarmClient swarm;
+    private final ReviewStore store;
+    private final int workers;
+    private final BlockingQueue<Long> queue;
+    private final Map<Long, Long> pending = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    private final Metrics.Counter queued = Metrics.counter(Metrics.withLabel("swarm_webhook_events_total", "outcome", "queued"));
+    private final Metrics.Counter deduped = Metrics.counter(Metrics.withLabel("swarm_webhook_events_total", "outcome", "deduped"));
+    private final Metrics.Counter rejected = Metrics.counter(Metrics.withLabel("swarm_webhook_events_total", "outcome", "rejected"));
+    private final Metrics.Counter failures = Metrics.counter("swarm_webhook_failures_total");
+    private final Metrics.Timer queueWait = Metrics.timer("swarm_webhook_queue_wait");
+    private final Metrics.Timer lag = Metrics.timer("swarm_webhook_lag");
+
+    public ReviewEventPipeline(SwarmClient swarm, ReviewStore store, int queueCapacity, int workers) {
+        this.swarm = swarm;
+        this.store = store;
+        this.workers = workers;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.executor = Executors.newFixedThreadPool(workers,
+                new BasicThreadFactory.Builder().namingPattern("swarm-webhook-%d").daemon(true).build());
+        Metrics.gauge("swarm_webhook_queue_depth", queue::size);
+        Metrics.gauge("swarm_webhook_oldest_pending_ms", this::getOldestPendingMillis);
+    }
+
+    /**
+     * Starts the workers.
+     *
+     * @param onChange called by a worker with the Swarm users whose review lists changed
+     */
+    public void start(Consumer<Set<String>> onChange) {
+        for (int i = 0; i < workers; i++) {
+            executor.execute(() -> work(onChange));
+        }
+    }
+
+    public Outcome offer(long reviewId) {
+        if (pending.putIfAbsent(reviewId, System.nanoTime()) != null) {
+            deduped.inc();
+            return Outcome.DEDUPED;
+        }
+        if (!queue.offer(reviewId)) {
+            pending.remove(reviewId);
+            rejected.inc();
+            return Outcome.REJECTED;
+        }
+        queued.inc();
+        return Outcome.QUEUED;
+    }
+
+    /**
+     * Age of the oldest notification not yet picked up by a worker, {@code 0} when there is none.
+     */
+    public long getOldestPendingMillis() {
+        long now = System.nanoTime();
+        long oldest = pending.values().stream().mapToLong(receivedAt -> now - receivedAt).max().orElse(0);
+        return oldest / 1_000_000;
+    }
+
+    private void work(Consumer<Set<String>> onChange) {
+        while (!Thread.currentThread().isInterrupted()) {
+            long reviewId;
+            try {
+                reviewId = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            // later notifications for the review are queued again from here on
+            Long receivedAt = pending.remove(reviewId);
+            if (receivedAt != null) queueWait.recordSince(receivedAt);
+            try {
+                Set<String> affected = apply(reviewId);
+                if (!affected.isEmpty()) onChange.accept(affected);
+            } catch (Exception e) {
+                // the next sync poll picks the change up
+                failures.inc();
+                log.warn("Could not apply the Swarm notification for review {}", reviewId, e);
+            } finally {
+                if (receivedAt != null) lag.recordSince(receivedAt);
+            }
+        }
+    }
+
+    /**
+     * Only a review Swarm answers {@code 404} for is removed; any other failure is thrown, to be counted and
+     * repaired by the next sync poll.
+     */
+    private Set<String> apply(long reviewId) throws IOException {
+        Review review = swarm.getReviewInBackground(String.valueOf(reviewId));
+        return review != null && review.getId() != null ? store.update(review) : store.remove(reviewId);
+    }
+
+}
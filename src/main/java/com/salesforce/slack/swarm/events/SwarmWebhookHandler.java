@@ -0,0 +1,85 @@
+package com.salesforce.slack.swarm.events;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.glassfish.grizzly.http.Method;
+import org.glassfish.grizzly.http.server.HttpHandler;
+import org.glassfish.grizzly.http.server.Request;
+import org.glassfish.grizzly.http.server.Response;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Receives Swarm's "review changed" notifications on the embedded Grizzly server and hands them to the
+ * {@link ReviewEventPipeline}.
+ * <p>
+ * A notification is a POST carrying the review id as a {@code review} query or form parameter, or as
+ * {@code review} or {@code id} in a JSON body, and the shared token as {@code token} or in the
+ * {@code X-Swarm-Token} header. It is answered with {@code 202} once queued, or {@code 503} with a
+ * {@code Retry-After} header while the queue is full.
+ */
+public class SwarmWebhookHandler extends HttpHandler {
+
+    static final String TOKEN_HEADER = "X-Swarm-Token";
+
+    private final ReviewEventPipeline pipeline;
+    private final byte[] token;
+
+    public SwarmWebhookHandler(ReviewEventPipeline pipeline, String token) {
+        this.pipeline = pipeline;
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void service(Request request, Response response) throws Exception {
+        if (request.getMethod() != Method.POST) {
+            response.setStatus(405);
+            return;
+        }
+        String requestToken = StringUtils.defaultIfEmpty(request.getHeader(TOKEN_HEADER), request.getParameter("token"));
+        if (requestToken == null || !MessageDigest.isEqual(token, requestToken.getBytes(StandardCharsets.UTF_8))) {
+            response.setStatus(401);
+            return;
+        }
+        Long reviewId = reviewId(request);
+        if (reviewId == null) {
+            response.setStatus(400);
+            response.getWriter().write("review id missing");
+            return;
+        }
+        switch (pipeline.offer(reviewId)) {
+            case REJECTED:
+                response.setStatus(503);
+                response.setHeader("Retry-After", "5");
+                break;
+            case QUEUED:
+            case DEDUPED:
+            default:
+                response.setStatus(202);
+        }
+    }
+
+    private static Long reviewId(Request request) throws Exception {
+        String review = request.getParameter("review");
+        if (review == null && StringUtils.startsWith(request.getContentType(), "application/json")) {
+            try {
+                JsonElement body = JsonParser.parseReader(request.getReader());
+                if (body.isJsonObject()) {
+                    JsonObject json = body.getAsJsonObject();
+                    JsonElement id = json.has("review") ? json.get("review") : json.get("id");
+                    review = id != null && id.isJsonPrimitive() ? id.getAsString() : null;
+                }
+            } catch (JsonParseException | IllegalStateException e) {
+                return null;
+            }
+        }
+        long id = NumberUtils.toLong(review, -1);
+        return id > 0 ? id : null;
+    }
+
+}
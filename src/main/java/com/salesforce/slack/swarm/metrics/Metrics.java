@@ -0,0 +1,228 @@
+package com.salesforce.slack.swarm.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Process-wide registry of counters, gauges and timers used to size executors and caches.
+ * <p>
+ * Names follow the Prometheus conventions and may carry labels, e.g. {@code slack_handler_duration{handler="details"}};
+ * {@link #scrape()} renders the registry in the Prometheus text format, timers as histograms in seconds.
+ */
+@Slf4j
+public final class Metrics {
+
+    private static final double[] BUCKETS_SECONDS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+    private static final long[] BUCKETS_NANOS = new long[BUCKETS_SECONDS.length];
+
+    static {
+        for (int i = 0; i < BUCKETS_SECONDS.length; i++) {
+            BUCKETS_NANOS[i] = (long) (BUCKETS_SECONDS[i] * 1_000_000_000L);
+        }
+    }
+
+    private static final Map<String, Counter> COUNTERS = new ConcurrentSkipListMap<>();
+    private static final Map<String, LongSupplier> GAUGES = new ConcurrentSkipListMap<>();
+    private static final Map<String, Timer> TIMERS = new ConcurrentSkipListMap<>();
+
+    private Metrics() {
+    }
+
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, n -> new Counter());
+    }
+
+    public static void gauge(String name, LongSupplier supplier) {
+        GAUGES.put(name, supplier);
+    }
+
+    /**
+     * A gauge driven by increments and decrements, e.g. the number of requests in flight.
+     */
+    public static UpDownCounter upDownCounter(String name) {
+        UpDownCounter counter = new UpDownCounter();
+        LongSupplier existing = GAUGES.putIfAbsent(name, counter);
+        return existing instanceof UpDownCounter ? (UpDownCounter) existing : counter;
+    }
+
+    public static Timer timer(String name) {
+        return TIMERS.computeIfAbsent(name, n -> new Timer());
+    }
+
+    /**
+     * Appends a label to a metric name that may already have labels.
+     */
+    public static String withLabel(String name, String label, String value) {
+        String pair = label + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+        return name.endsWith("}")
+                ? name.substring(0, name.length() - 1) + "," + pair + "}"
+                : name + "{" + pair + "}";
+    }
+
+    public static String summary() {
+        StringBuilder sb = new StringBuilder();
+        COUNTERS.forEach((name, counter) -> sb.append(name).append('=').append(counter.get()).append(' '));
+        GAUGES.forEach((name, gauge) -> sb.append(name).append('=').append(gauge.getAsLong()).append(' '));
+        TIMERS.forEach((name, timer) -> sb.append(name)
+                .append("{count=").append(timer.getCount())
+                .append(",avgMs=").append(TimeUnit.NANOSECONDS.toMillis(timer.getAverageNanos()))
+                .append(",maxMs=").append(TimeUnit.NANOSECONDS.toMillis(timer.getMaxNanos()))
+                .append("} "));
+        return sb.toString().trim();
+    }
+
+    /**
+     * Renders all metrics in the Prometheus text exposition format (version 0.0.4).
+     */
+    public static String scrape() {
+        StringBuilder sb = new StringBuilder();
+        groupByName(COUNTERS).forEach((name, series) -> {
+            sb.append("# TYPE ").append(name).append(" counter\n");
+            series.forEach((id, counter) -> sb.append(id).append(' ').append(counter.get()).append('\n'));
+        });
+        groupByName(GAUGES).forEach((name, series) -> {
+            sb.append("# TYPE ").append(name).append(" gauge\n");
+            series.forEach((id, gauge) -> sb.append(id).append(' ').append(gauge.getAsLong()).append('\n'));
+        });
+        groupByName(TIMERS).forEach((name, series) -> {
+            String histogram = name + "_seconds";
+            sb.append("# TYPE ").append(histogram).append(" histogram\n");
+            series.forEach((id, timer) -> {
+                String labels = id.substring(name.length());
+                long cumulative = 0;
+                for (int i = 0; i < BUCKETS_SECONDS.length; i++) {
+                    cumulative += timer.buckets[i].sum();
+                    sb.append(withLabel(histogram + "_bucket" + labels, "le", String.valueOf(BUCKETS_SECONDS[i])))
+                            .append(' ').append(cumulative).append('\n');
+                }
+                sb.append(withLabel(histogram + "_bucket" + labels, "le", "+Inf"))
+                        .append(' ').append(timer.getCount()).append('\n');
+                sb.append(histogram).append("_sum").append(labels).append(' ')
+                        .append(timer.getTotalNanos() / 1e9).append('\n');
+                sb.append(histogram).append("_count").append(labels).append(' ')
+                        .append(timer.getCount()).append('\n');
+            });
+        });
+        return sb.toString();
+    }
+
+    /**
+     * Periodically logs {@link #summary()}; does nothing when the interval is not positive.
+     */
+    public static void startLogReporter(long intervalSeconds) {
+        if (intervalSeconds <= 0) return;
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+                new BasicThreadFactory.Builder().namingPattern("metrics-reporter").daemon(true).build());
+        scheduler.scheduleAtFixedRate(() -> log.info("metrics: {}", summary()),
+                intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    private static <T> Map<String, Map<String, T>> groupByName(Map<String, T> metrics) {
+        Map<String, Map<String, T>> grouped = new LinkedHashMap<>();
+        List<String> ids = new ArrayList<>(metrics.keySet());
+        for (String id : ids) {
+            T metric = metrics.get(id);
+            if (metric == null) continue;
+            grouped.computeIfAbsent(StringUtils.substringBefore(id, "{"), name -> new LinkedHashMap<>()).put(id, metric);
+        }
+        return grouped;
+    }
+
+    public static final class Counter {
+
+        private final LongAdder value = new LongAdder();
+
+        public void inc() {
+            value.increment();
+        }
+
+        public void add(long delta) {
+            value.add(delta);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    public static final class UpDownCounter implements LongSupplier {
+
+        private final AtomicLong value = new AtomicLong();
+
+        public void inc() {
+            value.incrementAndGet();
+        }
+
+        public void dec() {
+            value.decrementAndGet();
+        }
+
+        @Override
+        public long getAsLong() {
+            return value.get();
+        }
+    }
+
+    public static final class Timer {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+        private final LongAdder[] buckets = new LongAdder[BUCKETS_NANOS.length];
+
+        private Timer() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            for (int i = 0; i < BUCKETS_NANOS.length; i++) {
+                if (nanos <= BUCKETS_NANOS[i]) {
+                    buckets[i].increment();
+                    break;
+                }
+            }
+        }
+
+        public void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getAverageNanos() {
+            long n = count.sum();
+            return n > 0 ? totalNanos.sum() / n : 0;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+    }
+
+}
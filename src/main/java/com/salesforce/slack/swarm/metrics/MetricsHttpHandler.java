@@ -0,0 +1,18 @@
+package com.salesforce.slack.swarm.metrics;
+
+import org.glassfish.grizzly.http.server.HttpHandler;
+import org.glassfish.grizzly.http.server.Request;
+import org.glassfish.grizzly.http.server.Response;
+
+/**
+ * Serves {@link Metrics#scrape()} for Prometheus from the embedded Grizzly server.
+ */
+public class MetricsHttpHandler extends HttpHandler {
+
+    @Override
+    public void service(Request request, Response response) throws Exception {
+        response.setContentType("text/plain; version=0.0.4; charset=utf-8");
+        response.getWriter().write(Metrics.scrape());
+    }
+
+}
@@ -0,0 +1,380 @@
+package com.salesforce.slack.swarm.model;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Immutable, compact form of a {@link Review} for holding many of them, e.g. in the review store.
+ * <p>
+ * Numbers are kept as primitives and id lists as {@code int[]}; the few distinct values of state, label, status,
+ * type and user names are shared through one pool, and participants are a flat array of names, the only part of
+ * them that is shown; whether one is a required reviewer is not kept, approving from Slack checks it against a
+ * fresh read of the review. Entries are never removed from the pool, so it stops taking new strings once it holds
+ * {@link #MAX_POOL_SIZE}; later ones are kept unshared, which costs memory but stays correct. A decoded
+ * {@code Review} with its boxed numbers, lists and participant maps takes several times the heap.
+ * {@link #view()} gives a read-only {@code Review} over the packed data.
+ */
+public final class PackedReview {
+
+    /**
+     * Far more than the distinct states, statuses and user names of one Swarm server.
+     */
+    static final int MAX_POOL_SIZE = 1 << 16;
+
+    private static final ConcurrentMap<String, String> POOL = new ConcurrentHashMap<>();
+    private static final int[] NO_INTS = new int[0];
+    private static final String[] NO_STRINGS = new String[0];
+
+    private static final byte HAS_CREATED = 1;
+    private static final byte HAS_UPDATED = 2;
+    private static final byte HAS_PENDING = 4;
+    private static final byte PENDING = 8;
+
+    private final long id;
+    private final long created;
+    private final long updated;
+    private final byte flags;
+    private final String author;
+    private final String state;
+    private final String stateLabel;
+    private final String testStatus;
+    private final String type;
+    private final String deployStatus;
+    private final String description;
+    private final int[] changes;
+    private final int[] comments;
+    private final int[] commits;
+    private final String[] commitStatus;
+    private final String[] participants;
+
+    private PackedReview(Review review) {
+        this.id = review.getId();
+        this.created = review.getCreated() != null ? review.getCreated() : 0;
+        this.updated = review.getUpdated() != null ? review.getUpdated() : 0;
+        this.flags = (byte) ((review.getCreated() != null ? HAS_CREATED : 0)
+                | (review.getUpdated() != null ? HAS_UPDATED : 0)
+                | (review.getPending() != null ? HAS_PENDING : 0)
+                | (Boolean.TRUE.equals(review.getPending()) ? PENDING : 0));
+        this.author = pooled(review.getAuthor());
+        this.state = pooled(review.getState());
+        this.stateLabel = pooled(review.getStateLabel());
+        this.testStatus = pooled(review.getTestStatus());
+        this.type = pooled(review.getType());
+        this.deployStatus = pooled(review.getDeployStatus());
+        this.description = review.getDescription();
+        this.changes = toArray(review.getChanges());
+        this.comments = toArray(review.getComments());
+        this.commits = toArray(review.getCommits());
+        this.commitStatus = review.getCommitStatus() != null ? pooled(review.getCommitStatus()) : null;
+        this.participants = review.getParticipants() != null ? pooled(review.getParticipants().keySet()) : null;
+    }
+
+    /**
+     * @param review a review with an id; a view is returned as its packed form
+     */
+    public static PackedReview pack(Review review) {
+        return review instanceof View ? ((View) review).packed : new PackedReview(review);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return {@code updated}, or {@code created} if Swarm sent no update time, or {@code 0}
+     */
+    public long getUpdatedAt() {
+        return (flags & HAS_UPDATED) != 0 ? updated : created;
+    }
+
+    public Review view() {
+        return new View(this);
+    }
+
+    /**
+     * Number of distinct strings shared between packed reviews.
+     */
+    public static int poolSize() {
+        return POOL.size();
+    }
+
+    private static String pooled(String value) {
+        if (value == null) return null;
+        String pooled = POOL.get(value);
+        if (pooled != null) return pooled;
+        // a few threads may pass the check at once, which overshoots the bound only by as many entries
+        if (POOL.size() >= MAX_POOL_SIZE) return value;
+        pooled = POOL.putIfAbsent(value, value);
+        return pooled != null ? pooled : value;
+    }
+
+    private static String[] pooled(Collection<String> values) {
+        if (values.isEmpty()) return NO_STRINGS;
+        String[] array = new String[values.size()];
+        int i = 0;
+        for (String value : values) {
+            array[i++] = pooled(value);
+        }
+        return array;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        if (values == null) return null;
+        if (values.isEmpty()) return NO_INTS;
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            Integer value = values.get(i);
+            array[i] = value != null ? value : 0;
+        }
+        return array;
+    }
+
+    /**
+     * Read-only {@link Review} backed by a packed review; lists and maps are views over its arrays. Being a
+     * {@code Review}, a view also carries the 16 fields of one, all left {@code null}: about 80 bytes with
+     * compressed oops, allocated on each read and dropped by the caller, while the store keeps only the packed
+     * form. Equal to, and hashing like, the review it was packed from. Setters throw
+     * {@link UnsupportedOperationException}.
+     */
+    private static final class View extends Review {
+
+        private final PackedReview packed;
+
+        private View(PackedReview packed) {
+            this.packed = packed;
+        }
+
+        @Override
+        public Long getId() {
+            return packed.id;
+        }
+
+        @Override
+        public String getAuthor() {
+            return packed.author;
+        }
+
+        @Override
+        public List<Integer> getChanges() {
+            return asList(packed.changes);
+        }
+
+        @Override
+        public List<Integer> getComments() {
+            return asList(packed.comments);
+        }
+
+        @Override
+        public List<Integer> getCommits() {
+            return asList(packed.commits);
+        }
+
+        @Override
+        public List<String> getCommitStatus() {
+            if (packed.commitStatus == null) return null;
+            return Collections.unmodifiableList(Arrays.asList(packed.commitStatus));
+        }
+
+        @Override
+        public String getDeployStatus() {
+            return packed.deployStatus;
+        }
+
+        @Override
+        public String getDescription() {
+            return packed.description;
+        }
+
+        @Override
+        public Map<String, Object> getParticipants() {
+            return packed.participants != null ? new ParticipantMap(packed.participants) : null;
+        }
+
+        @Override
+        public Boolean getPending() {
+            return (packed.flags & HAS_PENDING) != 0 ? (packed.flags & PENDING) != 0 : null;
+        }
+
+        @Override
+        public String getState() {
+            return packed.state;
+        }
+
+        @Override
+        public String getStateLabel() {
+            return packed.stateLabel;
+        }
+
+        @Override
+        public String getTestStatus() {
+            return packed.testStatus;
+        }
+
+        @Override
+        public String getType() {
+            return packed.type;
+        }
+
+        @Override
+        public Long getCreated() {
+            return (packed.flags & HAS_CREATED) != 0 ? packed.created : null;
+        }
+
+        @Override
+        public Long getUpdated() {
+            return (packed.flags & HAS_UPDATED) != 0 ? packed.updated : null;
+        }
+
+        @Override
+        public void setId(Long id) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setAuthor(String author) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setChanges(List<Integer> changes) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setComments(List<Integer> comments) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setCommits(List<Integer> commits) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setCommitStatus(List<String> commitStatus) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setDeployStatus(String deployStatus) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setDescription(String description) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setParticipants(Map<String, Object> participants) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setPending(Boolean pending) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setState(String state) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setStateLabel(String stateLabel) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setTestStatus(String testStatus) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setType(String type) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setCreated(Long created) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setUpdated(Long updated) {
+            throw readOnly();
+        }
+
+        private static UnsupportedOperationException readOnly() {
+            return new UnsupportedOperationException("Packed reviews are read-only");
+        }
+
+        private static List<Integer> asList(int[] values) {
+            if (values == null) return null;
+            return new AbstractList<Integer>() {
+                @Override
+                public Integer get(int index) {
+                    return values[index];
+                }
+
+                @Override
+                public int size() {
+                    return values.length;
+                }
+            };
+        }
+    }
+
+    /**
+     * Participant names in Swarm's order, each mapped to an empty map like {@code ReviewTypeAdapter} decodes an
+     * optional reviewer.
+     */
+    private static final class ParticipantMap extends AbstractMap<String, Object> {
+
+        private final String[] names;
+
+        private ParticipantMap(String[] names) {
+            this.names = names;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<Entry<String, Object>>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < names.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            return new SimpleImmutableEntry<>(names[next++], Collections.emptyMap());
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return names.length;
+                }
+            };
+        }
+    }
+
+}
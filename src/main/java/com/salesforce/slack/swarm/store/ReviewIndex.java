@@ -0,0 +1,359 @@
+package com.salesforce.slack.swarm.store;
+
+import com.salesforce.slack.swarm.model.Review;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over the author, participants, state and description of reviews, kept current by
+ * {@link ReviewStore} as reviews are stored and removed.
+ * <p>
+ * Every term maps to a posting list of the reviews containing it, sorted by an internal document number; each
+ * entry also records the fields the term occurs in, so {@code author:jane} and a bare {@code jane} read the same
+ * posting list. The number of a removed review goes to the next new one, so the per-query arrays, sized by the
+ * highest number, follow the reviews indexed now rather than every review ever indexed. Queries are whitespace
+ * separated clauses that must all match:
+ * <ul>
+ *     <li>{@code word} - the word in any field</li>
+ *     <li>{@code author:name}, {@code participant:name}, {@code state:needsReview} - a filter on one field</li>
+ *     <li>a trailing {@code *} on either form matches every term starting with it, e.g. {@code deploy*}</li>
+ * </ul>
+ * Matches are ranked by the rarity of the matched terms, weighted by field (author over participant over state
+ * over description); filters only narrow, and ties go to the newest review.
+ */
+public final class ReviewIndex {
+
+    static final int AUTHOR = 1;
+    static final int PARTICIPANT = 2;
+    static final int STATE = 4;
+    static final int DESCRIPTION = 8;
+    private static final int ANY = AUTHOR | PARTICIPANT | STATE | DESCRIPTION;
+    private static final int FIELD_BITS = 4;
+
+    private static final Map<String, Integer> FILTERS = new HashMap<>();
+
+    static {
+        FILTERS.put("author", AUTHOR);
+        FILTERS.put("participant", PARTICIPANT);
+        FILTERS.put("reviewer", PARTICIPANT);
+        FILTERS.put("state", STATE);
+    }
+
+    /**
+     * Ids of the best matching reviews, best first, and the number of reviews matching in all.
+     */
+    public static final class Hits {
+        private final List<Long> ids;
+        private final int totalCount;
+
+        private Hits(List<Long> ids, int totalCount) {
+            this.ids = ids;
+            this.totalCount = totalCount;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        public int getTotalCount() {
+            return totalCount;
+        }
+    }
+
+    /**
+     * Sorted {@code doc << FIELD_BITS | fields} entries of one term.
+     */
+    private static final class Postings {
+        private int[] entries = new int[2];
+        private int size;
+
+        private int find(int doc) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int midDoc = entries[mid] >>> FIELD_BITS;
+                if (midDoc < doc) {
+                    low = mid + 1;
+                } else if (midDoc > doc) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private void put(int doc, int fields) {
+            int entry = doc << FIELD_BITS | fields;
+            int at = find(doc);
+            if (at >= 0) {
+                entries[at] = entry;
+                return;
+            }
+            at = -at - 1;
+            if (size == entries.length) entries = Arrays.copyOf(entries, size * 2);
+            System.arraycopy(entries, at, entries, at + 1, size - at);
+            entries[at] = entry;
+            size++;
+        }
+
+        private void remove(int doc) {
+            int at = find(doc);
+            if (at < 0) return;
+            System.arraycopy(entries, at + 1, entries, at, size - at - 1);
+            size--;
+        }
+    }
+
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Long, Integer> docs = new HashMap<>();
+    private long[] reviewIds = new long[1024];
+    private int documentCount;
+    private int[] freeDocs = new int[16];
+    private int freeCount;
+    private int liveCount;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Replaces what is indexed for a review; either side may be {@code null} for a review that is new or removed.
+     * Callers serialize updates of the same review.
+     *
+     * @param previous the review as it was last indexed
+     */
+    public void update(Review previous, Review current) {
+        Map<String, Integer> before = previous != null ? terms(previous) : Collections.emptyMap();
+        Map<String, Integer> after = current != null ? terms(current) : Collections.emptyMap();
+        if (before.equals(after)) return;
+
+        long id = current != null ? current.getId() : previous.getId();
+        lock.writeLock().lock();
+        try {
+            Integer doc = docs.get(id);
+            if (doc == null) {
+                if (current == null) return;
+                doc = newDocument(id);
+            }
+            for (String term : before.keySet()) {
+                if (after.containsKey(term)) continue;
+                Postings postings = terms.get(term);
+                if (postings == null) continue;
+                postings.remove(doc);
+                if (postings.size == 0) terms.remove(term);
+            }
+            for (Map.Entry<String, Integer> term : after.entrySet()) {
+                terms.computeIfAbsent(term.getKey(), t -> new Postings()).put(doc, term.getValue());
+            }
+            if (current == null) {
+                // the review's postings are gone, so its number can go to the next new review
+                docs.remove(id);
+                liveCount--;
+                if (freeCount == freeDocs.length) freeDocs = Arrays.copyOf(freeDocs, freeCount * 2);
+                freeDocs[freeCount++] = doc;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Hits search(String query, int max) {
+        List<Clause> clauses = parse(query);
+        if (clauses.isEmpty()) return new Hits(Collections.emptyList(), 0);
+
+        lock.readLock().lock();
+        try {
+            float[] scores = new float[documentCount];
+            BitSet matched = null;
+            for (Clause clause : clauses) {
+                BitSet clauseDocs = new BitSet(documentCount);
+                Map<String, Postings> expanded = clause.prefix
+                        ? terms.subMap(clause.term, true, clause.term + Character.MAX_VALUE, false)
+                        : singleton(clause.term);
+                for (Postings postings : expanded.values()) {
+                    float idf = (float) Math.log(1 + (double) Math.max(1, liveCount) / postings.size);
+                    for (int i = 0; i < postings.size; i++) {
+                        int entry = postings.entries[i];
+                        int fields = entry & clause.fields;
+                        if (fields == 0) continue;
+                        int doc = entry >>> FIELD_BITS;
+                        clauseDocs.set(doc);
+                        if (!clause.filter) scores[doc] += idf * weight(fields);
+                    }
+                }
+                if (matched == null) {
+                    matched = clauseDocs;
+                } else {
+                    matched.and(clauseDocs);
+                }
+                if (matched.isEmpty()) return new Hits(Collections.emptyList(), 0);
+            }
+            return top(matched, scores, max);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Document numbers handed out so far, of indexed and of free ones; the length of the per-query arrays.
+     */
+    int getDocumentCount() {
+        lock.readLock().lock();
+        try {
+            return documentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Hits top(BitSet matched, float[] scores, int max) {
+        Comparator<Integer> ranking = (a, b) -> {
+            int byScore = Float.compare(scores[a], scores[b]);
+            return byScore != 0 ? byScore : Long.compare(reviewIds[a], reviewIds[b]);
+        };
+        // the worst of the best so far on top
+        PriorityQueue<Integer> best = new PriorityQueue<>(Math.max(1, max), ranking);
+        for (int doc = matched.nextSetBit(0); doc >= 0 && max > 0; doc = matched.nextSetBit(doc + 1)) {
+            if (best.size() < max) {
+                best.add(doc);
+            } else if (ranking.compare(doc, best.peek()) > 0) {
+                best.poll();
+                best.add(doc);
+            }
+        }
+        Long[] ids = new Long[best.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = reviewIds[best.poll()];
+        }
+        return new Hits(Arrays.asList(ids), matched.cardinality());
+    }
+
+    private int newDocument(long id) {
+        int doc;
+        if (freeCount > 0) {
+            doc = freeDocs[--freeCount];
+        } else {
+            if (documentCount == reviewIds.length) reviewIds = Arrays.copyOf(reviewIds, documentCount * 2);
+            doc = documentCount++;
+        }
+        reviewIds[doc] = id;
+        docs.put(id, doc);
+        liveCount++;
+        return doc;
+    }
+
+    private Map<String, Postings> singleton(String term) {
+        Postings postings = terms.get(term);
+        return postings != null ? Collections.singletonMap(term, postings) : Collections.emptyMap();
+    }
+
+    private static float weight(int fields) {
+        if ((fields & AUTHOR) != 0) return 3;
+        if ((fields & PARTICIPANT) != 0) return 2;
+        if ((fields & STATE) != 0) return 1.5f;
+        return 1;
+    }
+
+    /**
+     * @return every term of the review with the fields it occurs in
+     */
+    static Map<String, Integer> terms(Review review) {
+        Map<String, Integer> terms = new HashMap<>();
+        addName(terms, review.getAuthor(), AUTHOR);
+        if (review.getParticipants() != null) {
+            review.getParticipants().keySet().forEach(name -> addName(terms, name, PARTICIPANT));
+        }
+        addWords(terms, review.getState(), STATE);
+        addWords(terms, review.getDescription(), DESCRIPTION);
+        return terms;
+    }
+
+    /**
+     * A user name is a term as a whole, for filters, and by its parts, so {@code jane} finds {@code jane.doe}.
+     */
+    private static void addName(Map<String, Integer> terms, String name, int field) {
+        if (name == null || name.isEmpty()) return;
+        terms.merge(name.toLowerCase(Locale.ROOT), field, (a, b) -> a | b);
+        addWords(terms, name, field);
+    }
+
+    private static void addWords(Map<String, Integer> terms, String text, int field) {
+        for (String word : words(text)) {
+            terms.merge(word, field, (a, b) -> a | b);
+        }
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) return words;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start > 1) words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static final class Clause {
+        private final String term;
+        private final int fields;
+        private final boolean prefix;
+        private final boolean filter;
+
+        private Clause(String term, int fields, boolean prefix, boolean filter) {
+            this.term = term;
+            this.fields = fields;
+            this.prefix = prefix;
+            this.filter = filter;
+        }
+    }
+
+    private static List<Clause> parse(String query) {
+        List<Clause> clauses = new ArrayList<>();
+        if (query == null) return clauses;
+        for (String token : query.trim().split("\\s+")) {
+            int colon = token.indexOf(':');
+            Integer field = colon > 0 ? FILTERS.get(token.substring(0, colon).toLowerCase(Locale.ROOT)) : null;
+            if (field != null) {
+                String value = token.substring(colon + 1);
+                boolean prefix = value.endsWith("*");
+                if (prefix) value = value.substring(0, value.length() - 1);
+                if (!value.isEmpty()) clauses.add(new Clause(value.toLowerCase(Locale.ROOT), field, prefix, true));
+                continue;
+            }
+            List<String> words = words(token);
+            for (int i = 0; i < words.size(); i++) {
+                boolean prefix = i == words.size() - 1 && token.endsWith("*");
+                clauses.add(new Clause(words.get(i), ANY, prefix, false));
+            }
+        }
+        return clauses;
+    }
+
+}
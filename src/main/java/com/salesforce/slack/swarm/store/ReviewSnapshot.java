@@ -0,0 +1,420 @@
+package com.salesforce.slack.swarm.store;
+
+import com.salesforce.slack.swarm.metrics.Metrics;
+import com.salesforce.slack.swarm.model.PackedReview;
+import com.salesforce.slack.swarm.model.Review;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Binary snapshot of a {@link ReviewStore} and of the Slack to Swarm user matches, so a restarted app can serve
+ * the Home tab from memory while the first sync revalidates it.
+ * <p>
+ * An opened snapshot is memory-mapped; only the review index, the lists and the user matches are read up front,
+ * a review is decoded when it is first asked for. Every review field is written as a tag, a length and a value,
+ * so a field added to or removed from {@link Review} is read as missing or skipped. A change of the layout
+ * itself bumps {@link #FORMAT_VERSION}; files of another version are ignored rather than failing startup. Every
+ * count and length is checked against the bytes left before anything is allocated from it, so a damaged file is
+ * rejected instead of running the app out of memory.
+ */
+@Slf4j
+public final class ReviewSnapshot {
+
+    static final int MAGIC = 0x5357534e; // "SWSN"
+    static final int FORMAT_VERSION = 1;
+
+    private static final byte AUTHOR = 1;
+    private static final byte CHANGES = 2;
+    private static final byte COMMENTS = 3;
+    private static final byte COMMITS = 4;
+    private static final byte COMMIT_STATUS = 5;
+    private static final byte DEPLOY_STATUS = 6;
+    private static final byte DESCRIPTION = 7;
+    private static final byte PARTICIPANTS = 8;
+    private static final byte PENDING = 9;
+    private static final byte STATE = 10;
+    private static final byte STATE_LABEL = 11;
+    private static final byte TEST_STATUS = 12;
+    private static final byte TYPE = 13;
+    private static final byte CREATED = 14;
+    private static final byte UPDATED = 15;
+
+    private static final Metrics.Timer LOAD_DURATION = Metrics.timer("swarm_snapshot_load_duration");
+    private static final Metrics.Timer WRITE_DURATION = Metrics.timer("swarm_snapshot_write_duration");
+    private static final Metrics.Counter LOAD_FAILURES = Metrics.counter("swarm_snapshot_load_failures_total");
+    private static final Metrics.Counter WRITE_FAILURES = Metrics.counter("swarm_snapshot_write_failures_total");
+    private static final Metrics.Counter DECODED = Metrics.counter("swarm_snapshot_reviews_decoded_total");
+
+    private final ByteBuffer buffer;
+    private final long writtenAt;
+    private final long[] ids;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final Map<String, long[]> lists;
+    private final Map<String, String> userMatches;
+
+    private ReviewSnapshot(ByteBuffer buffer, long writtenAt, long[] ids, int[] offsets, int[] lengths,
+                           Map<String, long[]> lists, Map<String, String> userMatches) {
+        this.buffer = buffer;
+        this.writtenAt = writtenAt;
+        this.ids = ids;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.lists = lists;
+        this.userMatches = userMatches;
+    }
+
+    /**
+     * @return the snapshot, or {@code null} if there is none, it has another format version or it is damaged
+     */
+    public static ReviewSnapshot open(Path path) {
+        long start = System.nanoTime();
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            log.info("No review snapshot at {}, starting cold", path);
+            return null;
+        } catch (IOException e) {
+            LOAD_FAILURES.inc();
+            log.warn("Could not open review snapshot {}, starting cold", path, e);
+            return null;
+        }
+        try {
+            if (buffer.getInt() != MAGIC) {
+                LOAD_FAILURES.inc();
+                log.warn("{} is not a review snapshot, starting cold", path);
+                return null;
+            }
+            int version = buffer.getInt();
+            if (version != FORMAT_VERSION) {
+                LOAD_FAILURES.inc();
+                log.warn("Review snapshot {} has format version {}, expected {}; starting cold",
+                        path, version, FORMAT_VERSION);
+                return null;
+            }
+            long writtenAt = buffer.getLong();
+
+            int reviewCount = readCount(buffer, Long.BYTES + Integer.BYTES);
+            long[] ids = new long[reviewCount];
+            int[] offsets = new int[reviewCount];
+            int[] lengths = new int[reviewCount];
+            for (int i = 0; i < reviewCount; i++) {
+                ids[i] = buffer.getLong();
+                lengths[i] = readCount(buffer, 1);
+                offsets[i] = buffer.position();
+                buffer.position(offsets[i] + lengths[i]);
+            }
+
+            int listCount = readCount(buffer, 2 * Integer.BYTES);
+            Map<String, long[]> lists = new HashMap<>(listCount * 2);
+            for (int i = 0; i < listCount; i++) {
+                String key = readString(buffer);
+                long[] listed = new long[readCount(buffer, Long.BYTES)];
+                for (int j = 0; j < listed.length; j++) {
+                    listed[j] = buffer.getLong();
+                }
+                lists.put(key, listed);
+            }
+
+            int matchCount = readCount(buffer, 2 * Integer.BYTES);
+            Map<String, String> userMatches = new HashMap<>(matchCount * 2);
+            for (int i = 0; i < matchCount; i++) {
+                userMatches.put(readString(buffer), readString(buffer));
+            }
+            LOAD_DURATION.recordSince(start);
+            log.info("Opened review snapshot {} from {}: {} reviews, {} lists, {} user matches",
+                    path, new Date(writtenAt), reviewCount, listCount, matchCount);
+            return new ReviewSnapshot(buffer, writtenAt, ids, offsets, lengths, lists, userMatches);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            LOAD_FAILURES.inc();
+            log.warn("Review snapshot {} is damaged, starting cold", path, e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the store and the user matches to a temporary file next to {@code path} and moves it into place, so
+     * a crash while writing never leaves a partial snapshot behind.
+     */
+    public static void write(Path path, ReviewStore store, Map<String, String> userMatches) throws IOException {
+        long start = System.nanoTime();
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        List<PackedReview> reviews = new ArrayList<>(store.reviews());
+        reviews.sort(Comparator.comparingLong(PackedReview::getId));
+        Map<String, long[]> lists = new HashMap<>();
+        store.lists().forEach((key, listed) -> lists.put(key, listed.stream().mapToLong(Long::longValue).toArray()));
+
+        try {
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(System.currentTimeMillis());
+
+                out.writeInt(reviews.size());
+                ByteArrayOutputStream fieldBytes = new ByteArrayOutputStream(1024);
+                DataOutputStream fields = new DataOutputStream(fieldBytes);
+                for (PackedReview review : reviews) {
+                    fieldBytes.reset();
+                    writeFields(fields, review.view());
+                    out.writeLong(review.getId());
+                    out.writeInt(fieldBytes.size());
+                    fieldBytes.writeTo(out);
+                }
+
+                out.writeInt(lists.size());
+                for (Map.Entry<String, long[]> list : lists.entrySet()) {
+                    writeString(out, list.getKey());
+                    out.writeInt(list.getValue().length);
+                    for (long id : list.getValue()) {
+                        out.writeLong(id);
+                    }
+                }
+
+                out.writeInt(userMatches.size());
+                for (Map.Entry<String, String> match : userMatches.entrySet()) {
+                    writeString(out, match.getKey());
+                    writeString(out, match.getValue());
+                }
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Wrote review snapshot {}: {} reviews, {} lists", path, reviews.size(), lists.size());
+        } catch (IOException e) {
+            WRITE_FAILURES.inc();
+            Files.deleteIfExists(tmp);
+            throw e;
+        } finally {
+            WRITE_DURATION.recordSince(start);
+        }
+    }
+
+    public long getWrittenAt() {
+        return writtenAt;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Review lists by the key {@link ReviewStore} keeps them under, newest first.
+     */
+    Map<String, long[]> getLists() {
+        return lists;
+    }
+
+    /**
+     * Swarm usernames by Slack user id.
+     */
+    public Map<String, String> getUserMatches() {
+        return userMatches;
+    }
+
+    /**
+     * Decodes a review from the mapped file; safe to call from several threads.
+     *
+     * @return the review, or {@code null} if the snapshot does not hold it
+     */
+    Review getReview(long id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index < 0) return null;
+
+        ByteBuffer in = buffer.duplicate();
+        in.position(offsets[index]);
+        int end = offsets[index] + lengths[index];
+        Review review = new Review();
+        review.setId(id);
+        try {
+            while (in.position() < end) {
+                byte tag = in.get();
+                int length = in.getInt();
+                int next = in.position() + length;
+                readField(in, tag, review);
+                in.position(next);
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            log.warn("Could not decode review {} from the snapshot", id, e);
+            return null;
+        }
+        DECODED.inc();
+        return review;
+    }
+
+    private static void writeFields(DataOutputStream out, Review review) throws IOException {
+        writeString(out, AUTHOR, review.getAuthor());
+        writeInts(out, CHANGES, review.getChanges());
+        writeInts(out, COMMENTS, review.getComments());
+        writeInts(out, COMMITS, review.getCommits());
+        writeStrings(out, COMMIT_STATUS, review.getCommitStatus());
+        writeString(out, DEPLOY_STATUS, review.getDeployStatus());
+        writeString(out, DESCRIPTION, review.getDescription());
+        // only the participant names are shown, see ReviewTypeAdapter
+        writeStrings(out, PARTICIPANTS, review.getParticipants() != null
+                ? new ArrayList<>(review.getParticipants().keySet()) : null);
+        if (review.getPending() != null) {
+            out.writeByte(PENDING);
+            out.writeInt(1);
+            out.writeBoolean(review.getPending());
+        }
+        writeString(out, STATE, review.getState());
+        writeString(out, STATE_LABEL, review.getStateLabel());
+        writeString(out, TEST_STATUS, review.getTestStatus());
+        writeString(out, TYPE, review.getType());
+        writeLong(out, CREATED, review.getCreated());
+        writeLong(out, UPDATED, review.getUpdated());
+    }
+
+    private static void readField(ByteBuffer in, byte tag, Review review) {
+        switch (tag) {
+            case AUTHOR:
+                review.setAuthor(readString(in));
+                break;
+            case CHANGES:
+                review.setChanges(readInts(in));
+                break;
+            case COMMENTS:
+                review.setComments(readInts(in));
+                break;
+            case COMMITS:
+                review.setCommits(readInts(in));
+                break;
+            case COMMIT_STATUS:
+                review.setCommitStatus(readStrings(in));
+                break;
+            case DEPLOY_STATUS:
+                review.setDeployStatus(readString(in));
+                break;
+            case DESCRIPTION:
+                review.setDescription(readString(in));
+                break;
+            case PARTICIPANTS:
+                Map<String, Object> participants = new LinkedHashMap<>();
+                readStrings(in).forEach(name -> participants.put(name, Collections.emptyMap()));
+                review.setParticipants(participants);
+                break;
+            case PENDING:
+                review.setPending(in.get() != 0);
+                break;
+            case STATE:
+                review.setState(readString(in));
+                break;
+            case STATE_LABEL:
+                review.setStateLabel(readString(in));
+                break;
+            case TEST_STATUS:
+                review.setTestStatus(readString(in));
+                break;
+            case TYPE:
+                review.setType(readString(in));
+                break;
+            case CREATED:
+                review.setCreated(in.getLong());
+                break;
+            case UPDATED:
+                review.setUpdated(in.getLong());
+                break;
+            default:
+                // a field written by a newer version of the app, skipped by the caller
+        }
+    }
+
+    private static void writeString(DataOutputStream out, byte tag, String value) throws IOException {
+        if (value == null) return;
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeByte(tag);
+        out.writeInt(Integer.BYTES + bytes.length);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeLong(DataOutputStream out, byte tag, Long value) throws IOException {
+        if (value == null) return;
+        out.writeByte(tag);
+        out.writeInt(Long.BYTES);
+        out.writeLong(value);
+    }
+
+    private static void writeInts(DataOutputStream out, byte tag, List<Integer> values) throws IOException {
+        if (values == null) return;
+        out.writeByte(tag);
+        out.writeInt(Integer.BYTES * (values.size() + 1));
+        out.writeInt(values.size());
+        for (Integer value : values) {
+            out.writeInt(value != null ? value : 0);
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, byte tag, List<String> values) throws IOException {
+        if (values == null) return;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream value = new DataOutputStream(bytes);
+        value.writeInt(values.size());
+        for (String string : values) {
+            writeString(value, String.valueOf(string));
+        }
+        out.writeByte(tag);
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a count of items taking at least {@code minBytes} each.
+     *
+     * @throws IllegalArgumentException if the count is negative or more than the bytes left can hold
+     */
+    private static int readCount(ByteBuffer in, int minBytes) {
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining() / minBytes) {
+            throw new IllegalArgumentException("Count " + count + " at byte " + (in.position() - Integer.BYTES)
+                    + " does not fit in the " + in.remaining() + " bytes left");
+        }
+        return count;
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[readCount(in, 1)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static List<Integer> readInts(ByteBuffer in) {
+        int count = readCount(in, Integer.BYTES);
+        List<Integer> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(in.getInt());
+        }
+        return values;
+    }
+
+    private static List<String> readStrings(ByteBuffer in) {
+        int count = readCount(in, Integer.BYTES);
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,285 @@
+package com.salesforce.slack.swarm.store;
+
+import com.salesforce.slack.swarm.client.SwarmClient.ReviewRole;
+import com.salesforce.slack.swarm.model.PackedReview;
+import com.salesforce.slack.swarm.model.Review;
+import com.salesforce.slack.swarm.model.ReviewsData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory copy of the Swarm reviews kept up to date by {@link ReviewSyncEngine}.
+ * <p>
+ * Reviews are held once by id; for every synced user and role the store also remembers which reviews Swarm
+ * lists for them, newest first, so the Home tab can be rendered without asking Swarm. Reviews are held as
+ * {@link PackedReview}s and handed out as read-only views, and every stored review is kept in a
+ * {@link ReviewIndex} for {@link #search}. A review no list holds any more is dropped, so search only finds
+ * reviews of synced users.
+ * <p>
+ * After a restart the store can be warmed from a {@link ReviewSnapshot}: its lists are taken over right away and
+ * its reviews are decoded on first use, or by {@link #indexSnapshot()}, until the first sync has revalidated
+ * everything and the snapshot is released.
+ */
+public class ReviewStore {
+
+    private final Map<Long, PackedReview> reviews = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<Long>> lists = new ConcurrentHashMap<>();
+    private final ReviewIndex index = new ReviewIndex();
+    private volatile ReviewSnapshot snapshot;
+
+    public Review get(long id) {
+        PackedReview packed = reviews.get(id);
+        ReviewSnapshot warm = snapshot;
+        if (packed == null && warm != null) {
+            Review review = warm.getReview(id);
+            if (review != null) {
+                // a sync may have stored a newer copy meanwhile
+                PackedReview restored = PackedReview.pack(review);
+                packed = reviews.computeIfAbsent(id, key -> {
+                    index.update(null, review);
+                    return restored;
+                });
+            }
+        }
+        return packed != null ? packed.view() : null;
+    }
+
+    public void put(Review review) {
+        if (review != null && review.getId() != null) {
+            PackedReview packed = PackedReview.pack(review);
+            // per review, the index is updated in the order the store is
+            reviews.compute(review.getId(), (id, previous) -> {
+                index.update(previous != null ? previous.view() : null, review);
+                return packed;
+            });
+        }
+    }
+
+    /**
+     * Adds reviews to the user's list, e.g. ones found by an incremental poll.
+     */
+    public void addToList(String user, ReviewRole role, Collection<Review> listed) {
+        NavigableSet<Long> ids = lists.computeIfAbsent(listKey(user, role),
+                key -> new ConcurrentSkipListSet<>(Collections.reverseOrder()));
+        listed.forEach(review -> {
+            put(review);
+            if (review.getId() != null) ids.add(review.getId());
+        });
+    }
+
+    /**
+     * Replaces the user's list with the result of a full sync, dropping reviews Swarm no longer lists for them.
+     */
+    public void replaceList(String user, ReviewRole role, Collection<Review> listed) {
+        NavigableSet<Long> ids = new ConcurrentSkipListSet<>(Collections.reverseOrder());
+        listed.forEach(review -> {
+            put(review);
+            if (review.getId() != null) ids.add(review.getId());
+        });
+        NavigableSet<Long> previous = lists.put(listKey(user, role), ids);
+        if (previous != null) {
+            previous.stream().filter(id -> !ids.contains(id)).forEach(this::forgetIfUnlisted);
+        }
+    }
+
+    /**
+     * Stores a review Swarm reported as changed and adds it to, or drops it from, the lists the store holds for
+     * its old and new author and participants.
+     *
+     * @return the users with a list that showed or now shows the review
+     */
+    public Set<String> update(Review review) {
+        long id = review.getId();
+        Set<String> involved = involvedUsers(get(id));
+        put(review);
+        Set<String> nowInvolved = involvedUsers(review);
+        involved.addAll(nowInvolved);
+
+        Set<String> affected = new HashSet<>();
+        for (String user : involved) {
+            for (ReviewRole role : ReviewRole.values()) {
+                NavigableSet<Long> ids = lists.get(listKey(user, role));
+                if (ids == null) continue;
+
+                boolean listed = role == ReviewRole.AUTHOR
+                        ? user.equals(review.getAuthor())
+                        : review.getParticipants() != null && review.getParticipants().containsKey(user);
+                if (listed) {
+                    ids.add(id);
+                } else {
+                    ids.remove(id);
+                }
+                affected.add(user);
+            }
+        }
+        forgetIfUnlisted(id);
+        return affected;
+    }
+
+    /**
+     * Forgets a review Swarm no longer returns.
+     *
+     * @return the users with a list that showed the review
+     */
+    public Set<String> remove(long id) {
+        Set<String> affected = new HashSet<>();
+        for (String user : involvedUsers(get(id))) {
+            for (ReviewRole role : ReviewRole.values()) {
+                NavigableSet<Long> ids = lists.get(listKey(user, role));
+                if (ids != null && ids.remove(id)) affected.add(user);
+            }
+        }
+        reviews.computeIfPresent(id, (key, previous) -> {
+            index.update(previous.view(), null);
+            return null;
+        });
+        return affected;
+    }
+
+    public boolean hasList(String user, ReviewRole role) {
+        return lists.containsKey(listKey(user, role));
+    }
+
+    /**
+     * Builds the same shape of data the Swarm reviews endpoint returns: the newest {@code max} reviews, the id of
+     * the last one as {@code lastSeen} and the total number of reviews listed for the user.
+     */
+    public ReviewsData getReviews(String user, ReviewRole role, int max) {
+        return getReviews(user, role, max, null);
+    }
+
+    /**
+     * Same as {@link #getReviews(String, ReviewRole, int)}, continuing after the review {@code after}, as Swarm's
+     * {@code after} parameter does; {@code null} starts with the newest review.
+     */
+    public ReviewsData getReviews(String user, ReviewRole role, int max, Integer after) {
+        NavigableSet<Long> ids = lists.getOrDefault(listKey(user, role), Collections.emptyNavigableSet());
+        List<Review> page = new ArrayList<>(max);
+        // newest first, so the reviews after a cursor are the tail of the set
+        Iterator<Long> iterator = after != null ? ids.tailSet(after.longValue(), false).iterator() : ids.iterator();
+        while (iterator.hasNext() && page.size() < max) {
+            Review review = get(iterator.next());
+            if (review != null) page.add(review);
+        }
+        ReviewsData reviewsData = new ReviewsData();
+        reviewsData.setReviews(page);
+        reviewsData.setTotalCount(ids.size());
+        if (!page.isEmpty()) {
+            reviewsData.setLastSeen(page.get(page.size() - 1).getId().intValue());
+        }
+        return reviewsData;
+    }
+
+    /**
+     * Finds stored reviews by words and filters, without asking Swarm; see {@link ReviewIndex} for the query syntax.
+     *
+     * @return the best {@code max} matches and the number of reviews matching in all
+     */
+    public ReviewsData search(String query, int max) {
+        ReviewIndex.Hits hits = index.search(query, max);
+        List<Review> page = new ArrayList<>(hits.getIds().size());
+        for (long id : hits.getIds()) {
+            Review review = get(id);
+            if (review != null) page.add(review);
+        }
+        ReviewsData reviewsData = new ReviewsData();
+        reviewsData.setReviews(page);
+        reviewsData.setTotalCount(hits.getTotalCount());
+        return reviewsData;
+    }
+
+    public int getIndexedTermCount() {
+        return index.getTermCount();
+    }
+
+    public int size() {
+        return reviews.size();
+    }
+
+    /**
+     * Serves the snapshot's lists, and its reviews as they are asked for, until {@link #releaseSnapshot()}.
+     * Lists the store already has are kept.
+     */
+    public void restore(ReviewSnapshot snapshot) {
+        snapshot.getLists().forEach((key, listed) -> {
+            NavigableSet<Long> ids = new ConcurrentSkipListSet<>(Collections.reverseOrder());
+            for (long id : listed) {
+                ids.add(id);
+            }
+            lists.putIfAbsent(key, ids);
+        });
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Decodes and indexes the listed reviews still only held by the snapshot, so {@link #search} finds them before
+     * the first sync has stored them; meant to run in the background after {@link #restore}.
+     */
+    public void indexSnapshot() {
+        if (snapshot == null) return;
+        lists.values().forEach(ids -> ids.forEach(this::get));
+    }
+
+    /**
+     * Stops falling back to the snapshot, once a sync has replaced what was restored from it. Reviews still listed,
+     * e.g. for a user whose sync failed, are decoded from the snapshot first, so their lists stay whole.
+     */
+    public void releaseSnapshot() {
+        indexSnapshot();
+        snapshot = null;
+    }
+
+    public boolean hasSnapshot() {
+        return snapshot != null;
+    }
+
+    /**
+     * @return the Swarm users the store holds review lists for
+     */
+    public Set<String> getUsers() {
+        Set<String> users = new HashSet<>();
+        lists.keySet().forEach(key -> users.add(key.substring(key.indexOf(':') + 1)));
+        return users;
+    }
+
+    Collection<PackedReview> reviews() {
+        return reviews.values();
+    }
+
+    Map<String, NavigableSet<Long>> lists() {
+        return lists;
+    }
+
+    private void forgetIfUnlisted(long id) {
+        reviews.computeIfPresent(id, (key, previous) -> {
+            for (NavigableSet<Long> ids : lists.values()) {
+                if (ids.contains(id)) return previous;
+            }
+            index.update(previous.view(), null);
+            return null;
+        });
+    }
+
+    private static Set<String> involvedUsers(Review review) {
+        Set<String> users = new HashSet<>();
+        if (review == null) return users;
+        if (review.getAuthor() != null) users.add(review.getAuthor());
+        if (review.getParticipants() != null) users.addAll(review.getParticipants().keySet());
+        return users;
+    }
+
+    private static String listKey(String user, ReviewRole role) {
+        return role.name() + ":" + user;
+    }
+
+}
@@ -0,0 +1,212 @@
+package com.salesforce.slack.swarm.store;
+
+import com.salesforce.slack.swarm.client.SwarmClient;
+import com.salesforce.slack.swarm.client.SwarmClient.ReviewRole;
+import com.salesforce.slack.swarm.metrics.Metrics;
+import com.salesforce.slack.swarm.model.PackedReview;
+import com.salesforce.slack.swarm.model.Review;
+import com.salesforce.slack.swarm.model.ReviewsData;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps {@link ReviewStore} in sync with Swarm for every tracked user.
+ * <p>
+ * The first sync of a user pages through all their reviews with the {@code lastSeen} cursor. Later polls only
+ * walk pages until they reach reviews whose {@code updated} time is not newer than the watermark recorded by the
+ * previous sync. Swarm lists reviews by id rather than by update time, so an update to an old review deep in the
+ * list can be missed by a poll; a periodic full resync picks those up and drops reviews the user left.
+ * <p>
+ * Every user and role is synced on its own, so one that fails does not hold up the others; the poll only backs off
+ * when nothing could be synced. Lists restored from a snapshot count as never fully synced, so the first poll
+ * revalidates them with a full sync while they are already being served; after the first poll the snapshot is
+ * released, and lists that could not be revalidated yet keep what was restored.
+ */
+@Slf4j
+public class ReviewSyncEngine {
+
+    private static final class SyncState {
+        private long watermark;
+        private long lastFullSyncMillis;
+    }
+
+    private final SwarmClient swarm;
+    private final ReviewStore store;
+    private final int pageSize;
+    private final int maxPages;
+    private final long pollIntervalMillis;
+    private final long maxBackoffMillis;
+    private final long fullResyncMillis;
+    private final ScheduledExecutorService scheduler;
+    private final Set<String> users = ConcurrentHashMap.newKeySet();
+    private final Map<String, SyncState> states = new ConcurrentHashMap<>();
+
+    private volatile long lastSuccessMillis;
+    private long backoffMillis;
+
+    private final Metrics.Counter pages = Metrics.counter("swarm_sync_pages_total");
+    private final Metrics.Counter updatedReviews = Metrics.counter("swarm_sync_updated_reviews_total");
+    private final Metrics.Counter failures = Metrics.counter("swarm_sync_failures_total");
+    private final Metrics.Timer duration = Metrics.timer("swarm_sync_duration");
+
+    public ReviewSyncEngine(SwarmClient swarm, ReviewStore store, int pageSize, int maxPages,
+                            long pollInterval, long maxBackoff, long fullResyncInterval, TimeUnit unit) {
+        this.swarm = swarm;
+        this.store = store;
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.pollIntervalMillis = unit.toMillis(pollInterval);
+        this.maxBackoffMillis = unit.toMillis(maxBackoff);
+        this.fullResyncMillis = unit.toMillis(fullResyncInterval);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                new BasicThreadFactory.Builder().namingPattern("swarm-review-sync").daemon(true).build());
+        Metrics.gauge("swarm_sync_lag_ms", this::getSyncLagMillis);
+        Metrics.gauge("swarm_sync_tracked_users", users::size);
+        Metrics.gauge("swarm_review_store_size", store::size);
+        Metrics.gauge("swarm_review_string_pool_size", PackedReview::poolSize);
+    }
+
+    public void start() {
+        scheduler.schedule(this::run, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds a user whose reviews should be synced; the initial sync happens on the next poll.
+     */
+    public void track(String user) {
+        users.add(user);
+    }
+
+    public boolean isSynced(String user, ReviewRole role) {
+        return store.hasList(user, role);
+    }
+
+    /**
+     * Milliseconds since the last fully successful sync, or {@code -1} before the first one.
+     */
+    public long getSyncLagMillis() {
+        long lastSuccess = lastSuccessMillis;
+        return lastSuccess > 0 ? System.currentTimeMillis() - lastSuccess : -1;
+    }
+
+    private void run() {
+        long delay = pollIntervalMillis;
+        long start = System.nanoTime();
+        try {
+            int synced = 0;
+            int failed = 0;
+            for (String user : users) {
+                for (ReviewRole role : ReviewRole.values()) {
+                    try {
+                        sync(user, role);
+                        synced++;
+                    } catch (Exception e) {
+                        failed++;
+                        failures.inc();
+                        log.warn("Review sync for {} as {} failed", user, role, e);
+                    }
+                }
+            }
+            if (failed == 0) {
+                lastSuccessMillis = System.currentTimeMillis();
+            }
+            if (failed > 0 && synced == 0) {
+                backoffMillis = Math.min(backoffMillis > 0 ? backoffMillis * 2 : pollIntervalMillis * 2,
+                        maxBackoffMillis);
+                delay = backoffMillis / 2 + ThreadLocalRandom.current().nextLong(backoffMillis / 2 + 1);
+                log.warn("Review sync failed for all {} users, retrying in {} ms", users.size(), delay);
+            } else {
+                backoffMillis = 0;
+            }
+            if (store.hasSnapshot()) {
+                store.releaseSnapshot();
+                log.info("Revalidated the review snapshot for {} users, {} lists failed", users.size(), failed);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Review sync failed", e);
+        } finally {
+            duration.recordSince(start);
+            scheduler.schedule(this::run, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void sync(String user, ReviewRole role) throws IOException {
+        SyncState state = states.computeIfAbsent(role.name() + ":" + user, key -> new SyncState());
+        long now = System.currentTimeMillis();
+        if (!store.hasList(user, role) || now - state.lastFullSyncMillis >= fullResyncMillis) {
+            fullSync(user, role, state);
+            state.lastFullSyncMillis = now;
+        } else {
+            incrementalSync(user, role, state);
+        }
+    }
+
+    /**
+     * Replaces the user's list only once every page has been read; a page Swarm fails to list throws, and the list
+     * the store holds stays as it was.
+     */
+    private void fullSync(String user, ReviewRole role, SyncState state) throws IOException {
+        List<Review> listed = new ArrayList<>();
+        Integer after = null;
+        for (int page = 0; page < maxPages; page++) {
+            ReviewsData reviewsData = swarm.getReviews(role, user, pageSize, after);
+            pages.inc();
+            if (reviewsData == null || CollectionUtils.isEmpty(reviewsData.getReviews())) break;
+
+            listed.addAll(reviewsData.getReviews());
+            after = reviewsData.getLastSeen();
+            if (after == null || reviewsData.getReviews().size() < pageSize) break;
+        }
+        store.replaceList(user, role, listed);
+        updatedReviews.add(listed.size());
+        state.watermark = Math.max(state.watermark, maxUpdated(listed));
+        log.debug("Full review sync for {} as {}: {} reviews", user, role, listed.size());
+    }
+
+    private void incrementalSync(String user, ReviewRole role, SyncState state) throws IOException {
+        List<Review> changed = new ArrayList<>();
+        Integer after = null;
+        for (int page = 0; page < maxPages; page++) {
+            ReviewsData reviewsData = swarm.getReviews(role, user, pageSize, after);
+            pages.inc();
+            if (reviewsData == null || CollectionUtils.isEmpty(reviewsData.getReviews())) break;
+
+            boolean pageChanged = false;
+            for (Review review : reviewsData.getReviews()) {
+                if (updatedAt(review) > state.watermark || store.get(review.getId()) == null) {
+                    changed.add(review);
+                    pageChanged = true;
+                }
+            }
+            after = reviewsData.getLastSeen();
+            if (!pageChanged || after == null || reviewsData.getReviews().size() < pageSize) break;
+        }
+        if (!changed.isEmpty()) {
+            store.addToList(user, role, changed);
+            updatedReviews.add(changed.size());
+            state.watermark = Math.max(state.watermark, maxUpdated(changed));
+        }
+    }
+
+    private static long maxUpdated(List<Review> reviews) {
+        return reviews.stream().mapToLong(ReviewSyncEngine::updatedAt).max().orElse(0);
+    }
+
+    private static long updatedAt(Review review) {
+        if (review.getUpdated() != null) return review.getUpdated();
+        return review.getCreated() != null ? review.getCreated() : 0;
+    }
+
+}
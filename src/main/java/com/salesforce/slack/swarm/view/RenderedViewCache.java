@@ -0,0 +1,110 @@
+package com.salesforce.slack.swarm.view;
+
+import com.google.gson.Gson;
+import com.salesforce.slack.swarm.metrics.Metrics;
+import com.slack.api.model.view.View;
+import com.slack.api.util.json.GsonFactory;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the last rendered and the last published view of every Slack user.
+ * <p>
+ * A view is identified by its type (e.g. the selected review type) and the content it was rendered from. Rendering
+ * equal content again reuses the serialized view, and publishing a view whose JSON the user already has can be
+ * skipped, saving a Slack Web API call. The content's hash only rules out a match quickly; a match is always
+ * confirmed with {@code equals}, so two contents with the same hash never leave a user with a stale view.
+ */
+public class RenderedViewCache {
+
+    private static final Gson SLACK_GSON = GsonFactory.createSnakeCase();
+
+    @Getter
+    public static final class RenderedView {
+        private final String viewType;
+        private final int contentHash;
+        @Getter(AccessLevel.NONE)
+        private final Object content;
+        private final String json;
+
+        private RenderedView(String viewType, Object content, String json) {
+            this.viewType = viewType;
+            this.contentHash = Objects.hashCode(content);
+            this.content = content;
+            this.json = json;
+        }
+
+        private boolean isRenderedFrom(Object content) {
+            return contentHash == Objects.hashCode(content) && Objects.equals(this.content, content);
+        }
+    }
+
+    private final Map<String, RenderedView> rendered;
+    private final Map<String, RenderedView> published = new ConcurrentHashMap<>();
+
+    private final Metrics.Counter hits = Metrics.counter("rendered_view_cache_hits_total");
+    private final Metrics.Counter misses = Metrics.counter("rendered_view_cache_misses_total");
+    private final Metrics.Counter skippedPublishes = Metrics.counter("rendered_view_skipped_publishes_total");
+
+    public RenderedViewCache(int maxSize) {
+        this.rendered = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RenderedView> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the user's cached view if it was rendered from the same content, otherwise renders and caches it.
+     */
+    public RenderedView render(String slackUser, String viewType, Object content, Supplier<View> renderer) {
+        String key = slackUser + ":" + viewType;
+        RenderedView view;
+        synchronized (rendered) {
+            view = rendered.get(key);
+        }
+        if (view != null && view.isRenderedFrom(content)) {
+            hits.inc();
+            return view;
+        }
+        misses.inc();
+        long start = System.nanoTime();
+        view = new RenderedView(viewType, content, SLACK_GSON.toJson(renderer.get()));
+        Metrics.timer(Metrics.withLabel("view_render_duration", "view", viewType)).recordSince(start);
+        synchronized (rendered) {
+            rendered.put(key, view);
+        }
+        return view;
+    }
+
+    /**
+     * @return {@code true} if this exact view is what was last published for the user, so publishing can be skipped
+     */
+    public boolean isPublished(String slackUser, RenderedView view) {
+        RenderedView last = published.get(slackUser);
+        boolean same = last != null && last.viewType.equals(view.viewType) && last.json.equals(view.json);
+        if (same) skippedPublishes.inc();
+        return same;
+    }
+
+    public void markPublished(String slackUser, RenderedView view) {
+        published.put(slackUser, view);
+    }
+
+    /**
+     * @return the Slack users a view has been published to
+     */
+    public Set<String> getPublishedUsers() {
+        return Collections.unmodifiableSet(published.keySet());
+    }
+
+}
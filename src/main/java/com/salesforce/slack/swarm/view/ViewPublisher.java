@@ -0,0 +1,273 @@
+package com.salesforce.slack.swarm.view;
+
+import com.salesforce.slack.swarm.metrics.Metrics;
+import com.salesforce.slack.swarm.view.RenderedViewCache.RenderedView;
+import com.slack.api.methods.MethodsClient;
+import com.slack.api.methods.SlackApiException;
+import com.slack.api.methods.response.views.ViewsPublishResponse;
+import com.slack.api.methods.response.views.ViewsUpdateResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends Home tab views to Slack ({@code views.publish}, {@code views.update}) without tripping its rate limits.
+ * <p>
+ * Every Slack user has at most one view waiting. The first view after a quiet period is sent right away; views
+ * arriving within the debounce window after a send replace the waiting one, and only the latest is sent when the
+ * window ends. Each method draws from a token bucket sized after its Slack rate tier, and a {@code 429} pauses the
+ * method for the {@code Retry-After} Slack asks for before the view is tried again. A view identical to the one
+ * the user already has is never sent, and cancels one that is still waiting.
+ * <p>
+ * Views a user is waiting for, e.g. when they open their Home tab or act in it, are {@link Priority#INTERACTIVE}:
+ * they skip the debounce window and the waiting limit, and background views, e.g. pushed after a Swarm webhook,
+ * leave a share of each bucket to them, so a burst of webhooks cannot hold up the tab a user just opened.
+ */
+@Slf4j
+public class ViewPublisher {
+
+    public enum Method {
+        PUBLISH("views.publish"),
+        UPDATE("views.update");
+
+        private final String apiName;
+
+        Method(String apiName) {
+            this.apiName = apiName;
+        }
+    }
+
+    public enum Priority {
+        INTERACTIVE, BACKGROUND
+    }
+
+    private static final class PendingView {
+        private final MethodsClient slack;
+        private final Method method;
+        private final String slackUser;
+        private final String viewId;
+        private final RenderedView view;
+        private final Priority priority;
+
+        private PendingView(MethodsClient slack, Method method, String slackUser, String viewId, RenderedView view,
+                            Priority priority) {
+            this.slack = slack;
+            this.method = method;
+            this.slackUser = slackUser;
+            this.viewId = viewId;
+            this.view = view;
+            this.priority = priority;
+        }
+
+        /**
+         * The same view, taking over the priority of the one it replaces, so a user's waiting view is never demoted.
+         */
+        private PendingView replacing(PendingView previous) {
+            if (previous == null || previous.priority != Priority.INTERACTIVE || priority == Priority.INTERACTIVE) {
+                return this;
+            }
+            return new PendingView(slack, method, slackUser, viewId, view, Priority.INTERACTIVE);
+        }
+    }
+
+    /**
+     * Refills continuously at the method's rate up to a burst; {@link #pause} empties it until Slack's
+     * {@code Retry-After} has passed.
+     */
+    private static final class TokenBucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+        private long pausedUntil;
+
+        private TokenBucket(int perMinute, int burst) {
+            this.capacity = Math.max(1, burst);
+            this.tokensPerNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+            this.tokens = capacity;
+        }
+
+        /**
+         * @param reserved tokens to leave in the bucket, for callers of higher priority
+         * @return {@code 0} if a token was taken, otherwise nanoseconds until one is available
+         */
+        private synchronized long take(double reserved) {
+            long now = System.nanoTime();
+            if (now < pausedUntil) return pausedUntil - now;
+
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            double needed = 1 + Math.min(reserved, capacity - 1);
+            if (tokens >= needed) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((needed - tokens) / tokensPerNano);
+        }
+
+        private synchronized void pause(long nanos) {
+            pausedUntil = Math.max(pausedUntil, System.nanoTime() + nanos);
+            tokens = 0;
+        }
+    }
+
+    private final RenderedViewCache cache;
+    private final long debounceNanos;
+    private final int maxPending;
+    private final int interactiveReserve;
+    private final Map<Method, TokenBucket> buckets = new EnumMap<>(Method.class);
+    private final Map<String, PendingView> pending = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastSent = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    private final Metrics.Counter sent = Metrics.counter("slack_view_publisher_sent_total");
+    private final Metrics.Counter merged = Metrics.counter("slack_view_publisher_merged_total");
+    private final Metrics.Counter dropped = Metrics.counter("slack_view_publisher_dropped_total");
+    private final Metrics.Counter throttled = Metrics.counter("slack_view_publisher_throttled_total");
+    private final Metrics.Counter rateLimited = Metrics.counter("slack_view_publisher_rate_limited_total");
+    private final Metrics.Counter failures = Metrics.counter("slack_view_publisher_failures_total");
+
+    /**
+     * @param perMinute          Slack's rate limit per method, e.g. 100 for the Tier 4 {@code views.*} methods
+     * @param interactiveReserve tokens of each bucket background views leave to interactive ones
+     */
+    public ViewPublisher(RenderedViewCache cache, long debounceMillis, int perMinute, int burst, int maxPending,
+                         int interactiveReserve, int threads) {
+        this.cache = cache;
+        this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+        this.maxPending = maxPending;
+        this.interactiveReserve = interactiveReserve;
+        for (Method method : Method.values()) {
+            buckets.put(method, new TokenBucket(perMinute, burst));
+        }
+        this.scheduler = Executors.newScheduledThreadPool(threads,
+                new BasicThreadFactory.Builder().namingPattern("slack-view-publisher-%d").daemon(true).build());
+        Metrics.gauge("slack_view_publisher_queue_depth", pending::size);
+        Metrics.gauge("slack_view_publisher_debounced_users", lastSent::size);
+    }
+
+    /**
+     * Publishes the user's Home tab; with {@code force} even if it is the view the user already has.
+     */
+    public void publish(MethodsClient slack, String slackUser, RenderedView view, boolean force, Priority priority) {
+        submit(slackUser, new PendingView(slack, Method.PUBLISH, slackUser, null, view, priority), force);
+    }
+
+    /**
+     * Replaces the view with the given id, e.g. the Home tab an action was taken in; always interactive.
+     */
+    public void update(MethodsClient slack, String slackUser, String viewId, RenderedView view) {
+        submit(slackUser, new PendingView(slack, Method.UPDATE, slackUser, viewId, view, Priority.INTERACTIVE),
+                false);
+    }
+
+    private void submit(String slackUser, PendingView view, boolean force) {
+        if (!force && cache.isPublished(slackUser, view.view)) {
+            // whatever was waiting is older than what the user sees now
+            if (pending.remove(slackUser) != null) merged.inc();
+            return;
+        }
+        boolean interactive = view.priority == Priority.INTERACTIVE;
+        if (!interactive && pending.size() >= maxPending && !pending.containsKey(slackUser)) {
+            dropped.inc();
+            log.warn("Dropping the view of {}, {} views are waiting to be sent", slackUser, pending.size());
+            return;
+        }
+        PendingView[] replaced = new PendingView[1];
+        pending.compute(slackUser, (user, previous) -> {
+            replaced[0] = previous;
+            return view.replacing(previous);
+        });
+        if (replaced[0] != null) {
+            // a send is already scheduled and will pick this one; a user waiting for it should not wait for the
+            // debounce window of the background view it replaces
+            merged.inc();
+            if (interactive && replaced[0].priority != Priority.INTERACTIVE) schedule(slackUser, 0);
+            return;
+        }
+        long sinceLastSend = System.nanoTime() - lastSent.getOrDefault(slackUser, Long.MIN_VALUE / 2);
+        schedule(slackUser, interactive ? 0 : Math.max(0, debounceNanos - sinceLastSend));
+    }
+
+    private void schedule(String slackUser, long delayNanos) {
+        scheduler.schedule(() -> send(slackUser), delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void send(String slackUser) {
+        PendingView next = pending.get(slackUser);
+        if (next == null) return;
+        long wait = buckets.get(next.method).take(next.priority == Priority.INTERACTIVE ? 0 : interactiveReserve);
+        if (wait > 0) {
+            throttled.inc();
+            schedule(slackUser, wait);
+            return;
+        }
+        PendingView view = pending.remove(slackUser);
+        if (view == null) return;
+
+        long start = System.nanoTime();
+        lastSent.put(slackUser, start);
+        // past the debounce window the entry makes no difference, and users who do not come back should not keep it
+        scheduler.schedule(() -> lastSent.remove(slackUser, start), debounceNanos, TimeUnit.NANOSECONDS);
+        try {
+            String error = call(view);
+            if (error == null) {
+                cache.markPublished(slackUser, view.view);
+                sent.inc();
+            } else {
+                failures.inc();
+                log.warn("{} for {} failed: {}", view.method.apiName, slackUser, error);
+            }
+        } catch (SlackApiException e) {
+            if (e.getResponse() != null && e.getResponse().code() == 429) {
+                retryLater(slackUser, view, e);
+            } else {
+                failures.inc();
+                log.warn("{} for {} failed", view.method.apiName, slackUser, e);
+            }
+        } catch (Exception e) {
+            failures.inc();
+            log.warn("{} for {} failed", view.method.apiName, slackUser, e);
+        } finally {
+            Metrics.timer(Metrics.withLabel("slack_api_duration", "method", view.method.apiName)).recordSince(start);
+        }
+    }
+
+    /**
+     * @return Slack's error, or {@code null} if the view was sent
+     */
+    private static String call(PendingView view) throws IOException, SlackApiException {
+        if (view.method == Method.UPDATE) {
+            ViewsUpdateResponse response = view.slack.viewsUpdate(r -> r
+                    .viewId(view.viewId)
+                    .viewAsString(view.view.getJson()));
+            return response.isOk() ? null : response.getError();
+        }
+        ViewsPublishResponse response = view.slack.viewsPublish(r -> r
+                .userId(view.slackUser)
+                .viewAsString(view.view.getJson()));
+        return response.isOk() ? null : response.getError();
+    }
+
+    private void retryLater(String slackUser, PendingView view, SlackApiException e) {
+        rateLimited.inc();
+        long retryAfterSeconds = NumberUtils.toLong(e.getResponse().header("Retry-After"), 1);
+        long retryAfterNanos = TimeUnit.SECONDS.toNanos(Math.max(1, retryAfterSeconds));
+        buckets.get(view.method).pause(retryAfterNanos);
+        log.warn("{} is rate limited, retrying in {} s", view.method.apiName, retryAfterSeconds);
+        // unless a newer view arrived meanwhile, which is then sent instead
+        if (pending.putIfAbsent(slackUser, view) != null) {
+            merged.inc();
+        }
+        schedule(slackUser, retryAfterNanos);
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.salesforce.slack.swarm;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class HomePageTest {
+
+    private static final int MAX_PAGES = 4;
+
+    @Test
+    public void roundTripsThroughTheButtonValue() {
+        HomePage page = new HomePage(12345, 3);
+
+        assertEquals(page, HomePage.fromValue(page.toValue(), MAX_PAGES));
+        assertEquals(HomePage.FIRST, HomePage.fromValue(HomePage.FIRST.toValue(), MAX_PAGES));
+    }
+
+    @Test
+    public void nextAddsPagesUpToTheMaximumThenMovesOn() {
+        HomePage page = HomePage.FIRST;
+        for (int i = 1; i < MAX_PAGES; i++) {
+            page = page.next(100 - i, MAX_PAGES);
+        }
+        assertNull(page.getAfter());
+        assertEquals(MAX_PAGES, page.getPages());
+
+        assertEquals(new HomePage(42, MAX_PAGES), page.next(42, MAX_PAGES));
+    }
+
+    @Test
+    public void malformedValuesAreTheFirstPage() {
+        assertEquals(HomePage.FIRST, HomePage.fromValue(null, MAX_PAGES));
+        assertEquals(HomePage.FIRST, HomePage.fromValue("", MAX_PAGES));
+        assertEquals(HomePage.FIRST, HomePage.fromValue("12345", MAX_PAGES));
+        assertEquals(HomePage.FIRST, HomePage.fromValue("abc:2", MAX_PAGES));
+        assertEquals(HomePage.FIRST, HomePage.fromValue("12345:", MAX_PAGES));
+        assertEquals(HomePage.FIRST, HomePage.fromValue("-1:2", MAX_PAGES));
+        assertEquals(HomePage.FIRST, HomePage.fromValue("1:2:3", MAX_PAGES));
+    }
+
+    @Test
+    public void pagesAreClampedToTheMaximum() {
+        assertEquals(new HomePage(12345, MAX_PAGES), HomePage.fromValue("12345:100000", MAX_PAGES));
+        assertEquals(new HomePage(null, 1), HomePage.fromValue(":0", MAX_PAGES));
+    }
+
+    @Test
+    public void overflowingNumbersAreTheFirstPage() {
+        assertEquals(HomePage.FIRST, HomePage.fromValue(":99999999999", MAX_PAGES));
+        assertEquals(HomePage.FIRST, HomePage.fromValue("99999999999:2", MAX_PAGES));
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.salesforce.slack.swarm;
+
+import com.salesforce.slack.swarm.model.Review;
+import com.salesforce.slack.swarm.model.ReviewsData;
+import com.slack.api.model.block.LayoutBlock;
+import com.slack.api.model.block.SectionBlock;
+import com.slack.api.model.view.View;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SwarmViewsTest {
+
+    private static final String REVIEW_URL = "https://swarm.example.com/reviews/";
+
+    @Test
+    public void compactLayoutOfOneReview() {
+        LayoutBlock[] blocks = SwarmViews.buildCompactLayoutForReview(REVIEW_URL, review(7));
+
+        assertEquals(4, blocks.length);
+        assertEquals(SwarmViews.reviewBlockId(7L), ((SectionBlock) blocks[1]).getBlockId());
+        assertEquals(0, SwarmViews.buildCompactLayoutForReview(REVIEW_URL, null).length);
+    }
+
+    @Test
+    public void searchResultsAppendEachReviewInOrder() {
+        ReviewsData results = reviews(3);
+
+        List<LayoutBlock> blocks = SwarmViews.buildSearchResults(REVIEW_URL, "flaky", results);
+
+        assertEquals(1 + 3 * 4, blocks.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(SwarmViews.reviewBlockId((long) i), ((SectionBlock) blocks.get(2 + i * 4)).getBlockId());
+        }
+    }
+
+    @Test
+    public void homeViewShowsAsManyReviewsAsFit() {
+        ReviewsData reviewsData = reviews(5000);
+
+        View view = SwarmViews.buildHomeView(REVIEW_URL, SlackApp.REVIEW_TYPE.AUTHOR, reviewsData);
+
+        assertTrue(view.getBlocks().size() <= SwarmViews.MAX_BLOCKS);
+        assertNotNull(SwarmViews.findReviewSummary(view, String.valueOf(SwarmViews.MAX_HOME_REVIEWS - 1)));
+        assertNull(SwarmViews.findReviewSummary(view, String.valueOf(SwarmViews.MAX_HOME_REVIEWS)));
+    }
+
+    private static ReviewsData reviews(int count) {
+        List<Review> reviews = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            reviews.add(review(i));
+        }
+        ReviewsData reviewsData = new ReviewsData();
+        reviewsData.setReviews(reviews);
+        reviewsData.setTotalCount(count);
+        return reviewsData;
+    }
+
+    private static Review review(long id) {
+        Review review = new Review();
+        review.setId(id);
+        review.setAuthor("alice");
+        review.setDescription("Fix the flaky build");
+        review.setState("needsReview");
+        review.setStateLabel("Needs Review");
+        review.setCreated(1600000000000L);
+        return review;
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.salesforce.slack.swarm.cache;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TtlLruCacheTest {
+
+    @Test
+    public void getAllLoadsOnlyMissingKeysInOneCall() throws Exception {
+        TtlLruCache<String, String> cache = new TtlLruCache<>("test_get_all", 10, 1, 1, TimeUnit.HOURS, Runnable::run);
+        cache.put("alice", "Alice");
+        List<Collection<String>> calls = new ArrayList<>();
+
+        Map<String, String> values = cache.getAll(Arrays.asList("alice", "bob", "nobody"), keys -> {
+            calls.add(new ArrayList<>(keys));
+            Map<String, String> loaded = new HashMap<>();
+            loaded.put("bob", "Bob");
+            return loaded;
+        });
+
+        assertEquals(Arrays.asList("alice", "bob", "nobody"), new ArrayList<>(values.keySet()));
+        assertEquals("Alice", values.get("alice"));
+        assertEquals("Bob", values.get("bob"));
+        assertNull(values.get("nobody"));
+        assertEquals(1, calls.size());
+        assertEquals(Arrays.asList("bob", "nobody"), calls.get(0));
+        assertEquals("Bob", cache.getIfPresent("bob"));
+    }
+
+    @Test
+    public void getAllServesStaleEntriesAndRefreshesThemTogether() throws Exception {
+        TtlLruCache<String, String> cache = new TtlLruCache<>("test_get_all_stale", 10, 0, 1, TimeUnit.HOURS,
+                Runnable::run);
+        cache.put("alice", "Alice");
+        cache.put("bob", "Bob");
+        List<Collection<String>> calls = new ArrayList<>();
+
+        Map<String, String> values = cache.getAll(Arrays.asList("alice", "bob"), keys -> {
+            calls.add(new ArrayList<>(keys));
+            Map<String, String> loaded = new HashMap<>();
+            keys.forEach(key -> loaded.put(key, key.toUpperCase()));
+            return loaded;
+        });
+
+        assertEquals("Alice", values.get("alice"));
+        assertEquals("Bob", values.get("bob"));
+        assertEquals(1, calls.size());
+        assertEquals("ALICE", cache.getIfPresent("alice"));
+    }
+
+}
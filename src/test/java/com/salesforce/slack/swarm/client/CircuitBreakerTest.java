@@ -0,0 +1,99 @@
+package com.salesforce.slack.swarm.client;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class CircuitBreakerTest {
+
+    private static final long OPEN_MILLIS = 50;
+
+    private final CircuitBreaker breaker = new CircuitBreaker("test", 2, OPEN_MILLIS);
+
+    @Test
+    public void opensAfterConsecutiveFailuresAndRejects() {
+        breaker.onFailure(breaker.tryAcquire());
+        breaker.onSuccess(breaker.tryAcquire());
+        breaker.onFailure(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.onFailure(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+    }
+
+    @Test
+    public void letsOneProbeThroughAndClosesOnItsSuccess() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_MILLIS * 2);
+
+        long probe = breaker.tryAcquire();
+        assertNotEquals(CircuitBreaker.REJECTED, probe);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+
+        breaker.onSuccess(probe);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void failedProbeOpensAgain() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_MILLIS * 2);
+
+        breaker.onFailure(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+    }
+
+    @Test
+    public void successOfACallStartedBeforeOpeningDoesNotCloseTheCircuit() throws InterruptedException {
+        long slowCall = breaker.tryAcquire();
+        open();
+        Thread.sleep(OPEN_MILLIS * 2);
+        long probe = breaker.tryAcquire();
+
+        breaker.onSuccess(slowCall);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        // the probe is still the only call let through
+        assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+
+        breaker.onFailure(probe);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void failureOfACallStartedBeforeOpeningDoesNotFailTheProbe() throws InterruptedException {
+        long slowCall = breaker.tryAcquire();
+        open();
+        Thread.sleep(OPEN_MILLIS * 2);
+        long probe = breaker.tryAcquire();
+
+        breaker.onFailure(slowCall);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onSuccess(probe);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void lateFailuresDoNotCountAfterClosing() throws InterruptedException {
+        long slowCall = breaker.tryAcquire();
+        long otherSlowCall = breaker.tryAcquire();
+        open();
+        Thread.sleep(OPEN_MILLIS * 2);
+        breaker.onSuccess(breaker.tryAcquire());
+
+        breaker.onFailure(slowCall);
+        breaker.onFailure(otherSlowCall);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    private void open() {
+        breaker.onFailure(breaker.tryAcquire());
+        breaker.onFailure(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.salesforce.slack.swarm.client;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class FuturesTest {
+
+    @Test
+    public void swarmUnavailableStaysRecognizable() throws IOException {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.completeExceptionally(new SwarmUnavailableException("Swarm circuit breaker is open"));
+        try {
+            Futures.await(future);
+            fail("the failure must be rethrown");
+        } catch (SwarmUnavailableException e) {
+            assertEquals("Swarm circuit breaker is open", e.getMessage());
+        }
+    }
+
+    @Test
+    public void otherIOExceptionsAreRethrownAsIOException() {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.completeExceptionally(new IOException("Swarm responded with HTTP 500"));
+        try {
+            Futures.await(future);
+            fail("the failure must be rethrown");
+        } catch (IOException e) {
+            assertFalse(e instanceof SwarmUnavailableException);
+            assertEquals("Swarm responded with HTTP 500", e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.salesforce.slack.swarm.client;
+
+import com.salesforce.slack.swarm.client.SwarmClient.ReviewState;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReviewStateWriterTest {
+
+    private static final String REVIEW = "{\"review\": {\"id\": 1, \"author\": \"alice\", \"state\": \"%s\", "
+            + "\"participants\": {\"alice\": [], \"bob\": {\"required\": true, \"vote\": []}, "
+            + "\"carol\": {\"vote\": {\"value\": 1}}, \"dave\": {\"required\": \"1\"}}}}";
+
+    private HttpServer server;
+    private final List<String> stateChanges = new CopyOnWriteArrayList<>();
+    private final List<String> comments = new CopyOnWriteArrayList<>();
+    private ReviewStateWriter writer;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/v9/reviews/", exchange -> {
+            String state = "needsReview";
+            if ("PATCH".equals(exchange.getRequestMethod())) {
+                stateChanges.add(exchange.getRequestURI().getPath());
+                state = "approved";
+            }
+            respond(exchange, String.format(REVIEW, state));
+        });
+        server.createContext("/api/v9/comments", exchange -> {
+            comments.add(URLDecoder.decode(
+                    IOUtils.toString(exchange.getRequestBody(), StandardCharsets.UTF_8), "UTF-8"));
+            respond(exchange, "{\"comment\": {\"id\": 1}}");
+        });
+        server.start();
+        SwarmClient swarm = new SwarmClient("http://localhost:" + server.getAddress().getPort(), "app", "password",
+                ResilienceSettings.builder().build());
+        writer = new ReviewStateWriter(swarm, Runnable::run, 2);
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void requiredReviewerIsAcceptedAndAudited() {
+        ReviewStateWriter.Outcome outcome = change("bob");
+
+        assertEquals(1, outcome.getChanged().size());
+        assertTrue(outcome.getFailed().isEmpty());
+        assertEquals(Collections.singletonList("/api/v9/reviews/1/state/"), stateChanges);
+        assertEquals(1, comments.size());
+        assertTrue(comments.get(0), comments.get(0).contains("topic=reviews/1"));
+        assertTrue(comments.get(0), comments.get(0).contains("@bob") && comments.get(0).contains("U0BOB"));
+    }
+
+    @Test
+    public void requiredReviewerOfAGroupIsAccepted() {
+        assertEquals(1, change("dave").getChanged().size());
+    }
+
+    @Test
+    public void optionalReviewerIsRefused() {
+        ReviewStateWriter.Outcome outcome = change("carol");
+
+        assertTrue(outcome.getChanged().isEmpty());
+        assertEquals("only its required reviewers can approve or decline it", outcome.getFailed().get("1"));
+        assertTrue(stateChanges.isEmpty());
+        assertTrue(comments.isEmpty());
+    }
+
+    @Test
+    public void authorIsRefused() {
+        assertEquals("you are its author", change("alice").getFailed().get("1"));
+        assertTrue(stateChanges.isEmpty());
+    }
+
+    @Test
+    public void nonParticipantIsRefused() {
+        assertEquals("you are not one of its reviewers", change("erin").getFailed().get("1"));
+        assertTrue(stateChanges.isEmpty());
+    }
+
+    private ReviewStateWriter.Outcome change(String swarmUser) {
+        return writer.changeAll(Collections.singletonList("1"), ReviewState.APPROVED,
+                "U0" + swarmUser.toUpperCase(), swarmUser).join();
+    }
+
+    private static void respond(com.sun.net.httpserver.HttpExchange exchange, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.salesforce.slack.swarm.client;
+
+import com.salesforce.slack.swarm.model.Review;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ReviewTypeAdapterTest {
+
+    private static final String REVIEW = "{"
+            + "\"id\":12345,"
+            + "\"author\":\"alice\","
+            + "\"changes\":[12344,12346],"
+            + "\"comments\":[3,5],"
+            + "\"commits\":[12346],"
+            + "\"commitStatus\":[\"Committed\"],"
+            + "\"deployStatus\":\"success\","
+            + "\"description\":\"Fix the flaky build\","
+            + "\"participants\":{"
+            + "\"alice\":[],"
+            + "\"bob\":{\"required\":true,\"vote\":{\"value\":1,\"version\":2}},"
+            + "\"carol\":{\"notificationsDisabled\":true}},"
+            + "\"pending\":true,"
+            + "\"state\":\"needsReview\","
+            + "\"stateLabel\":\"Needs Review\","
+            + "\"testStatus\":\"pass\","
+            + "\"type\":\"default\","
+            + "\"created\":1600000000,"
+            + "\"updated\":1600000100,"
+            + "\"projects\":{\"core\":[\"main\"]},"
+            + "\"versions\":[{\"change\":12346,\"user\":\"alice\"}]"
+            + "}";
+
+    @Test
+    public void decodesEveryFieldLikeReflectiveGson() throws IllegalAccessException {
+        Review streamed = SwarmJson.GSON.fromJson(REVIEW, Review.class);
+        Review reflective = SwarmJson.REFLECTIVE_GSON.fromJson(REVIEW, Review.class);
+
+        for (Field field : Review.class.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) continue;
+            field.setAccessible(true);
+            Object expected = field.get(reflective);
+            Object actual = field.get(streamed);
+            assertNotNull(field.getName() + " is missing from the sample", expected);
+            if ("participants".equals(field.getName())) {
+                // only the names and the required flag are kept
+                assertEquals(((Map<?, ?>) expected).keySet(), ((Map<?, ?>) actual).keySet());
+            } else {
+                assertEquals(field.getName(), expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void keepsOnlyTheRequiredFlagOfParticipants() {
+        Review review = SwarmJson.GSON.fromJson(REVIEW, Review.class);
+
+        assertFalse(ReviewTypeAdapter.isRequired(review.getParticipants().get("alice")));
+        assertTrue(ReviewTypeAdapter.isRequired(review.getParticipants().get("bob")));
+        assertFalse(ReviewTypeAdapter.isRequired(review.getParticipants().get("carol")));
+    }
+
+    @Test
+    public void writesWhatItReads() {
+        Review review = SwarmJson.GSON.fromJson(REVIEW, Review.class);
+
+        assertEquals(review, SwarmJson.GSON.fromJson(SwarmJson.GSON.toJson(review), Review.class));
+    }
+
+    @Test
+    public void skipsPendingOfAnUnexpectedShape() {
+        Review review = SwarmJson.GSON.fromJson("{\"id\":1,\"pending\":\"yes\",\"type\":\"git\"}", Review.class);
+
+        assertNull(review.getPending());
+        assertEquals("git", review.getType());
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.salesforce.slack.swarm.client;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SingleFlightTest {
+
+    private static final int CALLERS = 4;
+
+    private final SingleFlight<String, String> flight = new SingleFlight<>("test");
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final CountDownLatch loading = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @After
+    public void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void concurrentCallersShareOneLoad() throws Exception {
+        List<Future<String>> results = callConcurrently(() -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return "review 1";
+        });
+
+        for (Future<String> result : results) {
+            assertEquals("review 1", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, flight.getWaiters("1"));
+    }
+
+    @Test
+    public void failureIsSharedToo() throws Exception {
+        List<Future<String>> results = callConcurrently(() -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            throw new IOException("Swarm responded with HTTP 500");
+        });
+
+        for (Future<String> result : results) {
+            try {
+                result.get(5, TimeUnit.SECONDS);
+                fail("the failure must reach every caller");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IOException);
+                assertEquals("Swarm responded with HTTP 500", e.getCause().getMessage());
+            }
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void completedCallsAreNotRemembered() throws IOException {
+        assertEquals("1", flight.execute("1", () -> String.valueOf(loads.incrementAndGet())));
+        assertEquals("2", flight.execute("1", () -> String.valueOf(loads.incrementAndGet())));
+    }
+
+    @Test
+    public void otherKeysAreLoadedSeparately() throws Exception {
+        Future<String> first = executor.submit(() -> flight.execute("1", () -> {
+            loading.countDown();
+            await(release);
+            return "review 1";
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        assertEquals("review 2", flight.execute("2", () -> "review 2"));
+        release.countDown();
+        assertEquals("review 1", first.get(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Starts one caller, waits until its load is in flight, adds the others and releases the load once they all
+     * wait for it.
+     */
+    private List<Future<String>> callConcurrently(SingleFlight.Loader<String> loader) throws InterruptedException {
+        List<Future<String>> results = new ArrayList<>();
+        results.add(executor.submit(() -> flight.execute("1", loader)));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i < CALLERS; i++) {
+            results.add(executor.submit(() -> flight.execute("1", loader)));
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (flight.getWaiters("1") < CALLERS - 1) {
+            if (System.currentTimeMillis() > deadline) fail("callers did not join the call in flight");
+            Thread.sleep(5);
+        }
+        release.countDown();
+        return results;
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) throw new IOException("not released");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.salesforce.slack.swarm.client;
+
+import com.google.gson.JsonParseException;
+import com.salesforce.slack.swarm.model.Review;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class SwarmClientTest {
+
+    private static final long CIRCUIT_OPEN_MILLIS = 50;
+
+    private HttpServer server;
+    private volatile int reviewStatus = 200;
+    private volatile String reviewBody = "{\"review\": {\"id\": 1, \"author\": \"alice\"}}";
+    private SwarmClient client;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/v9/reviews/", exchange -> {
+            byte[] body = reviewBody.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(reviewStatus, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        client = new SwarmClient("http://localhost:" + server.getAddress().getPort(), "user", "password",
+                ResilienceSettings.builder()
+                        .circuitFailureThreshold(1)
+                        .circuitOpenMillis(CIRCUIT_OPEN_MILLIS)
+                        .build());
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void undecodableResponseOpensTheCircuit() throws IOException {
+        reviewBody = "<html>Swarm is down for maintenance</html>";
+        expectDecodeFailure();
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitState());
+    }
+
+    @Test
+    public void failedHalfOpenProbeDoesNotBlockTheNextProbe() throws Exception {
+        reviewBody = "<html>Swarm is down for maintenance</html>";
+        expectDecodeFailure();
+
+        // the probe fails the same way; it must be reported, or every later call is rejected
+        Thread.sleep(CIRCUIT_OPEN_MILLIS * 2);
+        expectDecodeFailure();
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitState());
+
+        reviewBody = "{\"review\": {\"id\": 1, \"author\": \"alice\"}}";
+        Thread.sleep(CIRCUIT_OPEN_MILLIS * 2);
+        Review review = client.getReviewInBackground("1");
+        assertNotNull(review);
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitState());
+    }
+
+    @Test
+    public void missingReviewIsNull() throws IOException {
+        reviewStatus = 404;
+        reviewBody = "{\"error\": \"Not Found\"}";
+        assertNull(client.getReviewInBackground("1"));
+    }
+
+    @Test
+    public void refusedReviewIsAFailureNotADeletion() {
+        reviewStatus = 403;
+        reviewBody = "{\"error\": \"Forbidden\"}";
+        try {
+            client.getReviewInBackground("1");
+            fail("a 403 must not read as a deleted review");
+        } catch (IOException expected) {
+            // Swarm answered, so the circuit stays closed
+            assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitState());
+        }
+    }
+
+    private void expectDecodeFailure() throws IOException {
+        try {
+            client.getReviewInBackground("1");
+            fail("an HTML page must not decode as a review");
+        } catch (JsonParseException expected) {
+            // reported to the circuit breaker as a failure
+        }
+    }
+
+}
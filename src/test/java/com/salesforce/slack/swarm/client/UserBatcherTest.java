@@ -0,0 +1,98 @@
+package com.salesforce.slack.swarm.client;
+
+import com.salesforce.slack.swarm.model.User;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class UserBatcherTest {
+
+    private HttpServer server;
+    private final List<String> userQueries = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> rawQueries = Collections.synchronizedList(new ArrayList<>());
+    private ExecutorService flushExecutor;
+    private SwarmClient client;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/v9/users", exchange -> {
+            String users = exchange.getRequestURI().getQuery().substring("users=".length());
+            userQueries.add(users);
+            rawQueries.add(exchange.getRequestURI().getRawQuery());
+            StringBuilder json = new StringBuilder("[");
+            for (String username : users.split(",")) {
+                if (username.startsWith("unknown")) continue;
+                if (json.length() > 1) json.append(',');
+                json.append("{\"User\":\"").append(username).append("\"}");
+            }
+            byte[] body = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        client = new SwarmClient("http://localhost:" + server.getAddress().getPort(), "user", "password",
+                ResilienceSettings.builder().build());
+        flushExecutor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void stopServer() {
+        flushExecutor.shutdownNow();
+        server.stop(0);
+    }
+
+    @Test
+    public void splitsBatchesAtTheSizeLimit() throws IOException {
+        UserBatcher batcher = new UserBatcher(client, 50, 2, flushExecutor);
+
+        Map<String, User> users = batcher.resolveAll(Arrays.asList("alice", "bob", "carol", "dave", "erin"));
+
+        assertEquals(Arrays.asList("alice", "bob", "carol", "dave", "erin"), new ArrayList<>(users.keySet()));
+        users.forEach((username, user) -> assertEquals(username, user.getUsername()));
+        assertEquals(3, userQueries.size());
+        for (String query : userQueries) {
+            assertEquals(query, query.equals("erin") ? 1 : 2, query.split(",").length);
+        }
+    }
+
+    @Test
+    public void unknownUsersAreNull() throws IOException {
+        UserBatcher batcher = new UserBatcher(client, 10, 50, flushExecutor);
+
+        Map<String, User> users = batcher.resolveAll(Arrays.asList("alice", "unknown"));
+
+        assertEquals("alice", users.get("alice").getUsername());
+        assertNull(users.get("unknown"));
+        assertEquals(Collections.singletonList("alice,unknown"), userQueries);
+    }
+
+    @Test
+    public void usernamesAreEncodedInTheQuery() throws IOException {
+        UserBatcher batcher = new UserBatcher(client, 10, 50, flushExecutor);
+
+        assertEquals("a&b=c", batcher.resolve("a&b=c").getUsername());
+        assertEquals(Collections.singletonList("a&b=c"), userQueries);
+        assertEquals(1, rawQueries.get(0).split("&").length);
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.salesforce.slack.swarm.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class PackedReviewTest {
+
+    @Test
+    public void viewEqualsAndHashesLikeItsSource() {
+        Review review = review(12345);
+        Review view = PackedReview.pack(review).view();
+
+        assertEquals(review, view);
+        assertEquals(view, review);
+        assertEquals(review.hashCode(), view.hashCode());
+        assertEquals(review.toString(), view.toString());
+    }
+
+    @Test
+    public void viewKeepsMissingFieldsMissing() {
+        Review review = new Review();
+        review.setId(7L);
+        Review view = PackedReview.pack(review).view();
+
+        assertEquals(review, view);
+        assertEquals(review.hashCode(), view.hashCode());
+        assertNull(view.getCreated());
+        assertNull(view.getPending());
+        assertNull(view.getParticipants());
+    }
+
+    @Test
+    public void viewDiffersFromAnotherReview() {
+        Review review = review(12345);
+        Review other = review(12345);
+        other.setState("approved");
+
+        assertNotEquals(other, PackedReview.pack(review).view());
+    }
+
+    @Test
+    public void viewIsReadOnly() {
+        Review view = PackedReview.pack(review(12345)).view();
+        try {
+            view.setState("approved");
+            fail("a view must not be writable");
+        } catch (UnsupportedOperationException expected) {
+            assertEquals("needsReview", view.getState());
+        }
+    }
+
+    @Test
+    public void packingAViewReturnsItsPackedForm() {
+        PackedReview packed = PackedReview.pack(review(12345));
+
+        assertSame(packed, PackedReview.pack(packed.view()));
+    }
+
+    @Test
+    public void updatedAtFallsBackToCreated() {
+        Review review = review(12345);
+        review.setUpdated(null);
+
+        assertEquals(1600000000L, PackedReview.pack(review).getUpdatedAt());
+    }
+
+    @Test
+    public void equalStringsAreShared() {
+        Review first = review(1);
+        first.setAuthor(new String("alice"));
+        Review second = review(2);
+        second.setAuthor(new String("alice"));
+
+        assertSame(PackedReview.pack(first).view().getAuthor(), PackedReview.pack(second).view().getAuthor());
+    }
+
+    private static Review review(long id) {
+        Map<String, Object> participants = new LinkedHashMap<>();
+        participants.put("alice", Collections.emptyMap());
+        participants.put("bob", Collections.emptyMap());
+        Review review = new Review();
+        review.setId(id);
+        review.setAuthor("alice");
+        review.setChanges(Arrays.asList(12344, 12346));
+        review.setComments(Arrays.asList(3, 5));
+        review.setCommits(Collections.singletonList(12346));
+        review.setCommitStatus(Collections.singletonList("Committed"));
+        review.setDeployStatus("success");
+        review.setDescription("Fix the flaky build");
+        review.setParticipants(participants);
+        review.setPending(false);
+        review.setState("needsReview");
+        review.setStateLabel("Needs Review");
+        review.setTestStatus("pass");
+        review.setType("default");
+        review.setCreated(1600000000L);
+        review.setUpdated(1600000100L);
+        return review;
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.salesforce.slack.swarm.store;
+
+import com.salesforce.slack.swarm.model.Review;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReviewIndexTest {
+
+    @Test
+    public void prefixMatchesEveryTermStartingWithIt() {
+        ReviewIndex index = new ReviewIndex();
+        index.update(null, review(1, "alice", "Deploy the fix"));
+        index.update(null, review(2, "bob", "Deployment script"));
+        index.update(null, review(3, "carol", "Deprecate the old API"));
+
+        assertEquals(Arrays.asList(2L, 1L), index.search("deploy*", 10).getIds());
+        assertEquals(3, index.search("dep*", 10).getTotalCount());
+        assertEquals(Collections.singletonList(1L), index.search("deploy", 10).getIds());
+        assertEquals(Collections.singletonList(1L), index.search("author:ali*", 10).getIds());
+    }
+
+    @Test
+    public void filtersOnlyMatchTheirField() {
+        ReviewIndex index = new ReviewIndex();
+        index.update(null, review(1, "alice", "Review for bob", "bob"));
+        index.update(null, review(2, "bob", "Fix the build", "alice"));
+
+        assertEquals(Collections.singletonList(2L), index.search("author:bob", 10).getIds());
+        assertEquals(Collections.singletonList(1L), index.search("participant:bob", 10).getIds());
+        assertEquals(Collections.singletonList(1L), index.search("reviewer:bob", 10).getIds());
+        assertEquals(Arrays.asList(2L, 1L), index.search("bob", 10).getIds());
+        assertEquals(0, index.search("author:bob state:approved", 10).getTotalCount());
+        assertEquals(Collections.singletonList(2L), index.search("author:bob state:needsreview", 10).getIds());
+    }
+
+    @Test
+    public void ranksByFieldThenNewest() {
+        ReviewIndex index = new ReviewIndex();
+        index.update(null, review(1, "carol", "Ask jane about the cache"));
+        index.update(null, review(2, "jane", "Cache warm up"));
+        index.update(null, review(3, "carol", "Cache eviction", "jane"));
+        index.update(null, review(4, "carol", "Also ask jane"));
+
+        // author over participant over description, and the newer of two equal matches first
+        assertEquals(Arrays.asList(2L, 3L, 4L, 1L), index.search("jane", 10).getIds());
+        assertEquals(Arrays.asList(2L, 3L), index.search("jane", 2).getIds());
+        assertEquals(4, index.search("jane", 2).getTotalCount());
+    }
+
+    @Test
+    public void rarerTermsWeighMore() {
+        ReviewIndex index = new ReviewIndex();
+        index.update(null, review(1, "carol", "Cache warm up"));
+        index.update(null, review(2, "carol", "Cache eviction"));
+        index.update(null, review(3, "carol", "Cache size"));
+        index.update(null, review(4, "carol", "Cachet logo"));
+
+        // cachet is in one review, cache in three
+        assertEquals(4L, index.search("cache*", 10).getIds().get(0).longValue());
+    }
+
+    @Test
+    public void updatedReviewIsFoundByItsNewTermsOnly() {
+        ReviewIndex index = new ReviewIndex();
+        Review before = review(1, "alice", "Deploy the fix");
+        index.update(null, before);
+        Review after = review(1, "alice", "Revert the fix");
+        index.update(before, after);
+
+        assertEquals(0, index.search("deploy", 10).getTotalCount());
+        assertEquals(Collections.singletonList(1L), index.search("revert", 10).getIds());
+    }
+
+    @Test
+    public void numbersOfRemovedReviewsAreReused() {
+        ReviewIndex index = new ReviewIndex();
+        index.update(null, review(1, "alice", "Kept review"));
+        for (long id = 2; id < 1000; id++) {
+            Review review = review(id, "bob", "Short lived review " + id);
+            index.update(null, review);
+            index.update(review, null);
+        }
+
+        assertEquals(2, index.getDocumentCount());
+        assertEquals(Collections.singletonList(1L), index.search("review", 10).getIds());
+        assertEquals(0, index.search("bob", 10).getTotalCount());
+
+        index.update(null, review(1000, "bob", "New review"));
+        assertEquals(2, index.getDocumentCount());
+        assertEquals(Collections.singletonList(1000L), index.search("author:bob", 10).getIds());
+        assertTrue(index.search("lived", 10).getIds().isEmpty());
+    }
+
+    private static Review review(long id, String author, String description, String... participants) {
+        Map<String, Object> names = new LinkedHashMap<>();
+        for (String participant : participants) {
+            names.put(participant, Collections.emptyMap());
+        }
+        Review review = new Review();
+        review.setId(id);
+        review.setAuthor(author);
+        review.setDescription(description);
+        review.setParticipants(names);
+        review.setState("needsReview");
+        return review;
+    }
+
+}
@@ -0,0 +1,140 @@
+package com.salesforce.slack.swarm.store;
+
+import com.salesforce.slack.swarm.client.SwarmClient.ReviewRole;
+import com.salesforce.slack.swarm.model.Review;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class ReviewSnapshotTest {
+
+    private Path dir;
+    private Path path;
+
+    @Before
+    public void createDirectory() throws IOException {
+        dir = Files.createTempDirectory("review-snapshot");
+        path = dir.resolve("reviews.snapshot");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Test
+    public void roundTripsReviewsListsAndUserMatches() throws IOException {
+        Review first = review(1, "alice");
+        Review second = review(2, "bob");
+        second.setPending(true);
+        second.setType("git");
+        ReviewStore store = new ReviewStore();
+        store.replaceList("alice", ReviewRole.AUTHOR, Arrays.asList(second, first));
+
+        ReviewSnapshot.write(path, store, Collections.singletonMap("U123", "alice"));
+        ReviewSnapshot snapshot = ReviewSnapshot.open(path);
+
+        assertNotNull(snapshot);
+        assertEquals(2, snapshot.size());
+        assertEquals(first, snapshot.getReview(1));
+        assertEquals(second, snapshot.getReview(2));
+        assertNull(snapshot.getReview(3));
+        assertArrayEquals(new long[]{2, 1}, snapshot.getLists().values().iterator().next());
+        assertEquals(Collections.singletonMap("U123", "alice"), snapshot.getUserMatches());
+    }
+
+    @Test
+    public void otherFormatVersionIsIgnored() throws IOException {
+        writeSnapshot();
+        overwriteInt(Integer.BYTES, ReviewSnapshot.FORMAT_VERSION + 1);
+
+        assertNull(ReviewSnapshot.open(path));
+    }
+
+    @Test
+    public void otherFileIsIgnored() throws IOException {
+        Files.write(path, "not a snapshot".getBytes());
+
+        assertNull(ReviewSnapshot.open(path));
+    }
+
+    @Test
+    public void truncatedFileIsIgnored() throws IOException {
+        writeSnapshot();
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertNull(ReviewSnapshot.open(path));
+    }
+
+    @Test
+    public void countLargerThanTheFileIsIgnored() throws IOException {
+        writeSnapshot();
+        // the review count, after the magic number, the version and the time written
+        overwriteInt(2 * Integer.BYTES + Long.BYTES, Integer.MAX_VALUE);
+
+        assertNull(ReviewSnapshot.open(path));
+    }
+
+    @Test
+    public void negativeCountIsIgnored() throws IOException {
+        writeSnapshot();
+        overwriteInt(2 * Integer.BYTES + Long.BYTES, -1);
+
+        assertNull(ReviewSnapshot.open(path));
+    }
+
+    @Test
+    public void missingFileIsNoSnapshot() {
+        assertNull(ReviewSnapshot.open(path));
+    }
+
+    private void writeSnapshot() throws IOException {
+        ReviewStore store = new ReviewStore();
+        store.replaceList("alice", ReviewRole.AUTHOR, Collections.singletonList(review(1, "alice")));
+        ReviewSnapshot.write(path, store, Collections.emptyMap());
+    }
+
+    private void overwriteInt(int offset, int value) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        ByteBuffer.wrap(bytes).putInt(offset, value);
+        Files.write(path, bytes);
+    }
+
+    private static Review review(long id, String author) {
+        Map<String, Object> participants = new LinkedHashMap<>();
+        participants.put(author, Collections.emptyMap());
+        participants.put("carol", Collections.emptyMap());
+        Review review = new Review();
+        review.setId(id);
+        review.setAuthor(author);
+        review.setChanges(Arrays.asList(100, 101));
+        review.setCommitStatus(Collections.singletonList("Committed"));
+        review.setDescription("Review " + id);
+        review.setParticipants(participants);
+        review.setState("needsReview");
+        review.setStateLabel("Needs Review");
+        review.setCreated(1600000000L + id);
+        review.setUpdated(1600000100L + id);
+        return review;
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.salesforce.slack.swarm.store;
+
+import com.salesforce.slack.swarm.client.SwarmClient.ReviewRole;
+import com.salesforce.slack.swarm.model.Review;
+import com.salesforce.slack.swarm.model.ReviewsData;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class ReviewStoreTest {
+
+    @Test
+    public void reviewDroppedFromEveryListIsNoLongerFound() {
+        ReviewStore store = new ReviewStore();
+        store.replaceList("alice", ReviewRole.AUTHOR, Arrays.asList(review(1, "alice", "deploy fix"),
+                review(2, "alice", "deploy script")));
+        assertEquals(2, store.search("deploy", 10).getTotalCount().intValue());
+
+        store.replaceList("alice", ReviewRole.AUTHOR, Collections.singletonList(review(2, "alice", "deploy script")));
+
+        assertNull(store.get(1));
+        assertEquals(1, store.search("deploy", 10).getTotalCount().intValue());
+    }
+
+    @Test
+    public void reviewStillListedForAnotherUserIsKept() {
+        ReviewStore store = new ReviewStore();
+        Review review = review(1, "alice", "deploy fix");
+        store.replaceList("alice", ReviewRole.AUTHOR, Collections.singletonList(review));
+        store.replaceList("bob", ReviewRole.PARTICIPANT, Collections.singletonList(review));
+
+        store.replaceList("alice", ReviewRole.AUTHOR, Collections.emptyList());
+
+        assertNotNull(store.get(1));
+        assertEquals(1, store.search("deploy", 10).getTotalCount().intValue());
+    }
+
+    @Test
+    public void searchReturnsTheBestStoredReviews() {
+        ReviewStore store = new ReviewStore();
+        store.replaceList("alice", ReviewRole.AUTHOR, Arrays.asList(review(1, "alice", "deploy fix"),
+                review(2, "alice", "deploy script"), review(3, "alice", "build cache")));
+
+        ReviewsData results = store.search("author:alice deploy*", 1);
+
+        assertEquals(2, results.getTotalCount().intValue());
+        assertEquals(1, results.getReviews().size());
+        assertEquals("deploy script", results.getReviews().get(0).getDescription());
+        assertEquals(0, store.search("author:bob", 10).getTotalCount().intValue());
+    }
+
+    private static Review review(long id, String author, String description) {
+        Review review = new Review();
+        review.setId(id);
+        review.setAuthor(author);
+        review.setDescription(description);
+        review.setState("needsReview");
+        return review;
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.salesforce.slack.swarm.store;
+
+import com.salesforce.slack.swarm.client.ResilienceSettings;
+import com.salesforce.slack.swarm.client.SwarmClient;
+import com.salesforce.slack.swarm.client.SwarmClient.ReviewRole;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ReviewSyncEngineTest {
+
+    private static final String ONE_REVIEW = "{\"reviews\": [{\"id\": 7, \"author\": \"alice\", "
+            + "\"description\": \"deploy fix\", \"state\": \"needsReview\"}], \"lastSeen\": 7, \"totalCount\": 1}";
+
+    private HttpServer server;
+    private volatile int listStatus = 200;
+    private volatile String listBody = ONE_REVIEW;
+    private ReviewStore store;
+    private ReviewSyncEngine engine;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/v9/reviews", exchange -> {
+            byte[] body = listBody.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(listStatus, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        SwarmClient swarm = new SwarmClient("http://localhost:" + server.getAddress().getPort(), "user", "password",
+                ResilienceSettings.builder().maxAttempts(1).build());
+        store = new ReviewStore();
+        // the full resync interval of 0 makes every sync a full one
+        engine = new ReviewSyncEngine(swarm, store, 50, 20, 1, 1, 0, TimeUnit.MINUTES);
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void fullSyncStoresTheListedReviews() throws IOException {
+        engine.sync("alice", ReviewRole.AUTHOR);
+
+        assertTrue(engine.isSynced("alice", ReviewRole.AUTHOR));
+        assertNotNull(store.get(7));
+        assertEquals(1, store.getReviews("alice", ReviewRole.AUTHOR, 5).getReviews().size());
+    }
+
+    @Test
+    public void failingFirstPageKeepsTheSyncedList() throws IOException {
+        engine.sync("alice", ReviewRole.AUTHOR);
+
+        for (int status : new int[]{401, 403, 404, 500}) {
+            listStatus = status;
+            listBody = "{\"error\": \"failed\"}";
+            try {
+                engine.sync("alice", ReviewRole.AUTHOR);
+                fail("HTTP " + status + " must fail the sync");
+            } catch (IOException expected) {
+                assertNotNull("HTTP " + status + " dropped the review", store.get(7));
+                assertEquals(1, store.getReviews("alice", ReviewRole.AUTHOR, 5).getReviews().size());
+            }
+        }
+    }
+
+    @Test
+    public void emptyListIsStillASuccessfulSync() throws IOException {
+        engine.sync("alice", ReviewRole.AUTHOR);
+        listBody = "{\"reviews\": [], \"totalCount\": 0}";
+
+        engine.sync("alice", ReviewRole.AUTHOR);
+
+        assertEquals(0, store.getReviews("alice", ReviewRole.AUTHOR, 5).getReviews().size());
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.salesforce.slack.swarm.view;
+
+import com.salesforce.slack.swarm.view.RenderedViewCache.RenderedView;
+import com.slack.api.model.view.View;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RenderedViewCacheTest {
+
+    private final RenderedViewCache cache = new RenderedViewCache(10);
+    private final AtomicInteger renders = new AtomicInteger();
+
+    @Test
+    public void equalContentReusesTheRenderedView() {
+        RenderedView first = render("content");
+        RenderedView second = render(new String("content"));
+
+        assertSame(first, second);
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    public void differentContentWithTheSameHashIsRenderedAgain() {
+        // "Aa" and "BB" have the same String.hashCode
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        RenderedView first = render("Aa");
+        RenderedView second = render("BB");
+
+        assertEquals(2, renders.get());
+        assertNotEquals(first.getJson(), second.getJson());
+    }
+
+    @Test
+    public void onlyTheViewAlreadyPublishedIsSkipped() {
+        RenderedView first = render("Aa");
+        cache.markPublished("U1", first);
+
+        assertTrue(cache.isPublished("U1", render("Aa")));
+        assertFalse(cache.isPublished("U1", render("BB")));
+        assertFalse(cache.isPublished("U2", first));
+    }
+
+    private RenderedView render(String content) {
+        return cache.render("U1", "AUTHOR", content, () -> {
+            renders.incrementAndGet();
+            return View.builder().type("home").callbackId(content).build();
+        });
+    }
+
+}
@@ -0,0 +1,226 @@
+package com.salesforce.slack.swarm.view;
+
+import com.salesforce.slack.swarm.view.RenderedViewCache.RenderedView;
+import com.salesforce.slack.swarm.view.ViewPublisher.Priority;
+import com.slack.api.RequestConfigurator;
+import com.slack.api.methods.MethodsClient;
+import com.slack.api.methods.SlackApiException;
+import com.slack.api.methods.request.views.ViewsPublishRequest;
+import com.slack.api.methods.request.views.ViewsPublishRequest.ViewsPublishRequestBuilder;
+import com.slack.api.methods.request.views.ViewsUpdateRequest;
+import com.slack.api.methods.request.views.ViewsUpdateRequest.ViewsUpdateRequestBuilder;
+import com.slack.api.methods.response.views.ViewsPublishResponse;
+import com.slack.api.methods.response.views.ViewsUpdateResponse;
+import com.slack.api.model.view.View;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ViewPublisherTest {
+
+    private static final long DEBOUNCE_MILLIS = 300;
+
+    /**
+     * A view sent to Slack: the user or view id it was sent for, and its callback id, which names the view.
+     */
+    private static final class Sent {
+        private final String target;
+        private final String name;
+        private final long at = System.nanoTime();
+
+        private Sent(String target, String json) {
+            this.target = target;
+            this.name = json.replaceAll(".*\"callback_id\":\"([^\"]*)\".*", "$1");
+        }
+
+        @Override
+        public String toString() {
+            return target + ":" + name;
+        }
+    }
+
+    private final RenderedViewCache cache = new RenderedViewCache(100);
+    private final List<Sent> sent = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger rateLimitedCalls = new AtomicInteger();
+    private final MethodsClient slack = fakeSlack();
+
+    @Test
+    public void firstViewIsSentRightAwayAndOnlyTheLatestOfABurst() throws InterruptedException {
+        ViewPublisher publisher = publisher(DEBOUNCE_MILLIS, 1000, 100, 0);
+
+        publisher.publish(slack, "U1", view("U1", "v1"), false, Priority.BACKGROUND);
+        awaitSent(1);
+        publisher.publish(slack, "U1", view("U1", "v2"), false, Priority.BACKGROUND);
+        publisher.publish(slack, "U1", view("U1", "v3"), false, Priority.BACKGROUND);
+        awaitSent(2);
+        Thread.sleep(DEBOUNCE_MILLIS * 2);
+
+        assertEquals("[U1:v1, U1:v3]", sent.toString());
+        assertTrue(millisBetween(sent.get(0), sent.get(1)) >= DEBOUNCE_MILLIS - 50);
+    }
+
+    @Test
+    public void viewTheUserAlreadyHasIsNotSentAgain() throws InterruptedException {
+        ViewPublisher publisher = publisher(0, 1000, 100, 0);
+
+        publisher.publish(slack, "U1", view("U1", "v1"), false, Priority.BACKGROUND);
+        awaitSent(1);
+        publisher.publish(slack, "U1", view("U1", "v1"), false, Priority.BACKGROUND);
+        Thread.sleep(200);
+        assertEquals(1, sent.size());
+
+        publisher.publish(slack, "U1", view("U1", "v1"), true, Priority.BACKGROUND);
+        awaitSent(2);
+    }
+
+    @Test
+    public void interactiveViewSkipsTheDebounceWindow() throws InterruptedException {
+        ViewPublisher publisher = publisher(10_000, 1000, 100, 0);
+
+        publisher.publish(slack, "U1", view("U1", "v1"), false, Priority.BACKGROUND);
+        awaitSent(1);
+        publisher.publish(slack, "U1", view("U1", "v2"), false, Priority.BACKGROUND);
+        publisher.update(slack, "U1", "V123", view("U1", "v3"));
+        awaitSent(2);
+
+        assertEquals("[U1:v1, V123:v3]", sent.toString());
+        assertTrue(millisBetween(sent.get(0), sent.get(1)) < 1000);
+    }
+
+    @Test
+    public void bucketHoldsBackViewsPastTheBurst() throws InterruptedException {
+        // one view a second after a burst of two
+        ViewPublisher publisher = publisher(0, 60, 2, 0);
+
+        for (String user : new String[]{"U1", "U2", "U3"}) {
+            publisher.publish(slack, user, view(user, "v1"), false, Priority.BACKGROUND);
+        }
+        awaitSent(2);
+        Thread.sleep(300);
+        assertEquals(2, sent.size());
+
+        awaitSent(3);
+        assertTrue(millisBetween(sent.get(0), sent.get(2)) >= 800);
+    }
+
+    @Test
+    public void backgroundViewsLeaveTheReserveToInteractiveOnes() throws InterruptedException {
+        // a burst of two, one token reserved, and too slow a refill to matter
+        ViewPublisher publisher = publisher(0, 1, 2, 1);
+
+        publisher.publish(slack, "U1", view("U1", "v1"), false, Priority.BACKGROUND);
+        awaitSent(1);
+        publisher.publish(slack, "U2", view("U2", "v1"), false, Priority.BACKGROUND);
+        publisher.publish(slack, "U3", view("U3", "v1"), false, Priority.INTERACTIVE);
+        awaitSent(2);
+        Thread.sleep(300);
+
+        assertEquals("[U1:v1, U3:v1]", sent.toString());
+    }
+
+    @Test
+    public void rateLimitedViewIsRetriedAfterRetryAfter() throws InterruptedException {
+        ViewPublisher publisher = publisher(0, 1000, 100, 0);
+        rateLimitedCalls.set(1);
+
+        publisher.publish(slack, "U1", view("U1", "v1"), false, Priority.INTERACTIVE);
+        Thread.sleep(500);
+        assertEquals(0, sent.size());
+        assertEquals(0, rateLimitedCalls.get());
+
+        awaitSent(1);
+        assertEquals("[U1:v1]", sent.toString());
+        assertTrue(cache.isPublished("U1", view("U1", "v1")));
+    }
+
+    @Test
+    public void newerViewReplacesARateLimitedOne() throws InterruptedException {
+        ViewPublisher publisher = publisher(0, 1000, 100, 0);
+        rateLimitedCalls.set(1);
+
+        publisher.publish(slack, "U1", view("U1", "v1"), false, Priority.INTERACTIVE);
+        Thread.sleep(200);
+        publisher.publish(slack, "U1", view("U1", "v2"), false, Priority.INTERACTIVE);
+        awaitSent(1);
+        Thread.sleep(300);
+
+        assertEquals("[U1:v2]", sent.toString());
+    }
+
+    private ViewPublisher publisher(long debounceMillis, int perMinute, int burst, int interactiveReserve) {
+        return new ViewPublisher(cache, debounceMillis, perMinute, burst, 1000, interactiveReserve, 2);
+    }
+
+    private RenderedView view(String slackUser, String name) {
+        return cache.render(slackUser, "AUTHOR", name, () -> View.builder().type("home").callbackId(name).build());
+    }
+
+    private void awaitSent(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (sent.size() < count) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("expected " + count + " views sent, got " + sent);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static long millisBetween(Sent first, Sent second) {
+        return (second.at - first.at) / 1_000_000;
+    }
+
+    /**
+     * Answers {@code views.publish} and {@code views.update}, with a {@code 429} and {@code Retry-After: 1} for as
+     * many calls as {@link #rateLimitedCalls} says.
+     */
+    @SuppressWarnings("unchecked")
+    private MethodsClient fakeSlack() {
+        return (MethodsClient) Proxy.newProxyInstance(MethodsClient.class.getClassLoader(),
+                new Class<?>[]{MethodsClient.class}, (proxy, method, args) -> {
+                    boolean publish = method.getName().equals("viewsPublish");
+                    if (!publish && !method.getName().equals("viewsUpdate")
+                            || !(args[0] instanceof RequestConfigurator)) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    if (rateLimitedCalls.getAndUpdate(calls -> Math.max(0, calls - 1)) > 0) {
+                        throw rateLimited(method.getName());
+                    }
+                    if (publish) {
+                        ViewsPublishRequest request = ((RequestConfigurator<ViewsPublishRequestBuilder>) args[0])
+                                .configure(ViewsPublishRequest.builder()).build();
+                        sent.add(new Sent(request.getUserId(), request.getViewAsString()));
+                        ViewsPublishResponse response = new ViewsPublishResponse();
+                        response.setOk(true);
+                        return response;
+                    }
+                    ViewsUpdateRequest request = ((RequestConfigurator<ViewsUpdateRequestBuilder>) args[0])
+                            .configure(ViewsUpdateRequest.builder()).build();
+                    sent.add(new Sent(request.getViewId(), request.getViewAsString()));
+                    ViewsUpdateResponse response = new ViewsUpdateResponse();
+                    response.setOk(true);
+                    return response;
+                });
+    }
+
+    private static SlackApiException rateLimited(String method) {
+        Response response = new Response.Builder()
+                .request(new Request.Builder().url("https://slack.com/api/" + method).build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(429)
+                .message("Too Many Requests")
+                .header("Retry-After", "1")
+                .build();
+        return new SlackApiException(response, "{\"ok\":false,\"error\":\"ratelimited\"}");
+    }
+
+}